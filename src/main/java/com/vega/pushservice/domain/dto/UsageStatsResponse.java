@@ -0,0 +1,24 @@
+package com.vega.pushservice.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UsageStatsResponse {
+    
+    private Long userId;
+    private Long repositoryCount;
+    private Long storedBytes;
+    private Long fileCount;
+    private Map<String, Long> pushesByStatus;
+    private LocalDateTime updatedAt;
+    private LocalDateTime reconciledAt;
+}
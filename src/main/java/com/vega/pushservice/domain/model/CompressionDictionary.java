@@ -0,0 +1,46 @@
+package com.vega.pushservice.domain.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "compression_dictionaries",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"repository_id", "version"}))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EntityListeners(AuditingEntityListener.class)
+public class CompressionDictionary {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    
+    @Column(name = "repository_id", nullable = false)
+    private String repositoryId;
+    
+    @Column(nullable = false)
+    private Integer version;
+    
+    @Column(nullable = false, length = 65536)
+    private byte[] content;
+    
+    @Column(name = "sample_count")
+    @Builder.Default
+    private Integer sampleCount = 0;
+    
+    @CreatedDate
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
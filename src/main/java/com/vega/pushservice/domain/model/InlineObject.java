@@ -0,0 +1,37 @@
+package com.vega.pushservice.domain.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Table(name = "inline_objects",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"repository_id", "path"}))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InlineObject {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    
+    @Column(name = "repository_id", nullable = false)
+    private String repositoryId;
+    
+    @Column(nullable = false, length = 1024)
+    private String path;
+    
+    @Column(name = "compressed_content", nullable = false, length = 16777216)
+    private byte[] compressedContent;
+    
+    @Column(name = "size")
+    @Builder.Default
+    private Long size = 0L;
+}
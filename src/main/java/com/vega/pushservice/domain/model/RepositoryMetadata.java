@@ -36,6 +36,22 @@ public class RepositoryMetadata {
     @Column(name = "hdfs_path", nullable = false)
     private String hdfsPath;
     
+    @Enumerated(EnumType.STRING)
+    @Column(name = "storage_tier")
+    @Builder.Default
+    private StorageTier storageTier = StorageTier.HDFS;
+    
+    @Column(name = "shard", length = 64)
+    private String shard;
+    
+    /** Tier still holding a copy from before the last tier change, removed by the reaper. */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "stale_storage_tier")
+    private StorageTier staleStorageTier;
+    
+    @Column(name = "stale_shard", length = 64)
+    private String staleShard;
+    
     @Column(name = "last_commit_hash", length = 64)
     private String lastCommitHash;
     
@@ -58,6 +74,17 @@ public class RepositoryMetadata {
     @LastModifiedDate
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
+    
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
+    
+    @Column(name = "delete_attempts")
+    @Builder.Default
+    private Integer deleteAttempts = 0;
+    
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "bigint default 0")
+    private long version;
 }
 
 
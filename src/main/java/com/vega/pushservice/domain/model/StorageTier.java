@@ -0,0 +1,5 @@
+package com.vega.pushservice.domain.model;
+
+public enum StorageTier {
+    INLINE, HDFS
+}
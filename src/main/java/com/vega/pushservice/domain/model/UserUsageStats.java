@@ -0,0 +1,56 @@
+package com.vega.pushservice.domain.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "user_usage_stats")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserUsageStats {
+    
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+    
+    @Column(name = "repository_count", nullable = false)
+    @Builder.Default
+    private Long repositoryCount = 0L;
+    
+    @Column(name = "stored_bytes", nullable = false)
+    @Builder.Default
+    private Long storedBytes = 0L;
+    
+    @Column(name = "file_count", nullable = false)
+    @Builder.Default
+    private Long fileCount = 0L;
+    
+    @Column(name = "pushes_pending", nullable = false)
+    @Builder.Default
+    private Long pushesPending = 0L;
+    
+    @Column(name = "pushes_in_progress", nullable = false)
+    @Builder.Default
+    private Long pushesInProgress = 0L;
+    
+    @Column(name = "pushes_completed", nullable = false)
+    @Builder.Default
+    private Long pushesCompleted = 0L;
+    
+    @Column(name = "pushes_failed", nullable = false)
+    @Builder.Default
+    private Long pushesFailed = 0L;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    @Column(name = "reconciled_at")
+    private LocalDateTime reconciledAt;
+}
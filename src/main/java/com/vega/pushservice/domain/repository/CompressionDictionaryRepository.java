@@ -0,0 +1,22 @@
+package com.vega.pushservice.domain.repository;
+
+import com.vega.pushservice.domain.model.CompressionDictionary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+@Repository
+public interface CompressionDictionaryRepository extends JpaRepository<CompressionDictionary, Long> {
+    
+    Optional<CompressionDictionary> findFirstByRepositoryIdAndUserIdOrderByVersionDesc(String repositoryId, Long userId);
+    
+    @Transactional
+    @Modifying
+    @Query("delete from CompressionDictionary d where d.repositoryId = :repositoryId and d.userId = :userId")
+    int deleteByRepositoryIdAndUserId(@Param("repositoryId") String repositoryId, @Param("userId") Long userId);
+}
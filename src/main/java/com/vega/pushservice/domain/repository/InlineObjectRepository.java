@@ -0,0 +1,22 @@
+package com.vega.pushservice.domain.repository;
+
+import com.vega.pushservice.domain.model.InlineObject;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+@Repository
+public interface InlineObjectRepository extends JpaRepository<InlineObject, Long> {
+    
+    Optional<InlineObject> findByRepositoryIdAndUserIdAndPath(String repositoryId, Long userId, String path);
+    
+    @Transactional
+    @Modifying
+    @Query("delete from InlineObject o where o.repositoryId = :repositoryId and o.userId = :userId")
+    int deleteByRepositoryIdAndUserId(@Param("repositoryId") String repositoryId, @Param("userId") Long userId);
+}
@@ -1,7 +1,10 @@
 package com.vega.pushservice.domain.repository;
 
 import com.vega.pushservice.domain.model.PushOperation;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -15,6 +18,18 @@ public interface PushOperationRepository extends JpaRepository<PushOperation, Lo
     Optional<PushOperation> findByIdAndUserId(Long id, Long userId);
     
     List<PushOperation> findByRepositoryIdAndUserId(String repositoryId, Long userId);
+    
+    @Query("select p.status as status, count(p) as count from PushOperation p "
+            + "where p.userId = :userId group by p.status")
+    List<StatusCount> countByStatusForUserId(@Param("userId") Long userId);
+    
+    @Query("select distinct p.userId from PushOperation p where p.userId > :afterUserId order by p.userId")
+    List<Long> findUserIdsAfter(@Param("afterUserId") Long afterUserId, Pageable pageable);
+    
+    interface StatusCount {
+        PushOperation.Status getStatus();
+        long getCount();
+    }
 }
 
 
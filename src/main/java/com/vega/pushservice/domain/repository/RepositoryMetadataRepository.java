@@ -1,9 +1,15 @@
 package com.vega.pushservice.domain.repository;
 
 import com.vega.pushservice.domain.model.RepositoryMetadata;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,11 +18,41 @@ public interface RepositoryMetadataRepository extends JpaRepository<RepositoryMe
     
     List<RepositoryMetadata> findByUserIdOrderByUpdatedAtDesc(Long userId);
     
+    List<RepositoryMetadata> findByUserIdAndDeletedAtIsNullOrderByUpdatedAtDesc(Long userId);
+    
     Optional<RepositoryMetadata> findByRepositoryIdAndUserId(String repositoryId, Long userId);
     
+    Optional<RepositoryMetadata> findByRepositoryIdAndUserIdAndDeletedAtIsNull(String repositoryId, Long userId);
+    
     Optional<RepositoryMetadata> findByRepositoryId(String repositoryId);
     
     boolean existsByRepositoryIdAndUserId(String repositoryId, Long userId);
+    
+    List<RepositoryMetadata> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+    
+    List<RepositoryMetadata> findByDeletedAtBeforeAndDeleteAttemptsLessThanOrderByDeletedAtAsc(
+            LocalDateTime cutoff, Integer maxAttempts, Pageable pageable);
+    
+    List<RepositoryMetadata> findByStaleStorageTierIsNotNullAndDeletedAtIsNullOrderByIdAsc(Pageable pageable);
+    
+    /**
+     * Bumps the version of a row that is still at {@code version}, returning 0 if it has changed since.
+     */
+    @Transactional
+    @Modifying
+    @Query("update RepositoryMetadata m set m.version = m.version + 1 where m.id = :id and m.version = :version")
+    int claimVersion(@Param("id") Long id, @Param("version") long version);
+    
+    @Query("select count(m) as repositoryCount, coalesce(sum(m.totalSize), 0) as storedBytes, "
+            + "coalesce(sum(m.fileCount), 0) as fileCount "
+            + "from RepositoryMetadata m where m.userId = :userId and m.deletedAt is null")
+    UsageTotals sumUsageByUserId(@Param("userId") Long userId);
+    
+    interface UsageTotals {
+        long getRepositoryCount();
+        long getStoredBytes();
+        long getFileCount();
+    }
 }
 
 
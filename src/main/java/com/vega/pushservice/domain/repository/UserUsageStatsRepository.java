@@ -0,0 +1,52 @@
+package com.vega.pushservice.domain.repository;
+
+import com.vega.pushservice.domain.model.UserUsageStats;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface UserUsageStatsRepository extends JpaRepository<UserUsageStats, Long> {
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from UserUsageStats s where s.userId = :userId")
+    Optional<UserUsageStats> findByIdForUpdate(@Param("userId") Long userId);
+    
+    /**
+     * Inserts the row unless one exists for the user already, without raising a constraint violation.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "insert into user_usage_stats (user_id, repository_count, stored_bytes, file_count, "
+            + "pushes_pending, pushes_in_progress, pushes_completed, pushes_failed, updated_at, reconciled_at) "
+            + "values (:#{#stats.userId}, :#{#stats.repositoryCount}, :#{#stats.storedBytes}, :#{#stats.fileCount}, "
+            + ":#{#stats.pushesPending}, :#{#stats.pushesInProgress}, :#{#stats.pushesCompleted}, "
+            + ":#{#stats.pushesFailed}, :#{#stats.updatedAt}, :#{#stats.reconciledAt}) "
+            + "on conflict do nothing", nativeQuery = true)
+    int insertIfAbsent(@Param("stats") UserUsageStats stats);
+    
+    @Modifying
+    @Query("update UserUsageStats s set "
+            + "s.repositoryCount = s.repositoryCount + :repositories, "
+            + "s.storedBytes = s.storedBytes + :bytes, "
+            + "s.fileCount = s.fileCount + :files, "
+            + "s.pushesCompleted = s.pushesCompleted + :completed, "
+            + "s.pushesFailed = s.pushesFailed + :failed, "
+            + "s.updatedAt = :now "
+            + "where s.userId = :userId")
+    int increment(@Param("userId") Long userId,
+                  @Param("repositories") long repositories,
+                  @Param("bytes") long bytes,
+                  @Param("files") long files,
+                  @Param("completed") long completed,
+                  @Param("failed") long failed,
+                  @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,166 @@
+package com.vega.pushservice.domain.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Size-bounded LRU cache of decompressed file contents, keyed by content hash.
+ * Blob bytes are kept in direct buffers so hot repositories do not add heap/GC pressure.
+ * A separate path index maps repository paths to content hashes. Path keys include the version of the
+ * committed repository metadata, so every instance moves to new keys as soon as a push commits and
+ * never serves content of an earlier push, whichever instance handled it.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BlobCacheService {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${blob-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${blob-cache.max-bytes:268435456}")
+    private long maxBytes;
+
+    @Value("${blob-cache.max-entry-bytes:8388608}")
+    private long maxEntryBytes;
+
+    @Value("${blob-cache.max-index-entries:100000}")
+    private int maxIndexEntries;
+
+    private final LinkedHashMap<String, ByteBuffer> blobs = new LinkedHashMap<>(16, 0.75f, true);
+    private LinkedHashMap<String, String> pathIndex;
+    private long currentBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        pathIndex = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > maxIndexEntries;
+            }
+        };
+
+        FunctionCounter.builder("vega.blob.cache.hits", hits, AtomicLong::get).register(meterRegistry);
+        FunctionCounter.builder("vega.blob.cache.misses", misses, AtomicLong::get).register(meterRegistry);
+        FunctionCounter.builder("vega.blob.cache.evictions", evictions, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("vega.blob.cache.size", this, BlobCacheService::getCurrentBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("vega.blob.cache.entries", this, BlobCacheService::getEntryCount).register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached content for a repository path, or null if the path is unknown or its blob was evicted.
+     */
+    public byte[] get(String pathKey) {
+        if (!enabled) {
+            return null;
+        }
+
+        ByteBuffer buffer;
+        synchronized (this) {
+            String contentHash = pathIndex.get(pathKey);
+            buffer = contentHash != null ? blobs.get(contentHash) : null;
+        }
+        if (buffer == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+
+        // Cached buffers are never written after insertion, and an evicted one stays valid while referenced
+        byte[] data = new byte[buffer.capacity()];
+        buffer.duplicate().get(data);
+        return data;
+    }
+
+    /**
+     * Caches content read from storage and points the path at it.
+     */
+    public void put(String pathKey, byte[] data) {
+        if (!enabled || data.length > maxEntryBytes) {
+            return;
+        }
+
+        String contentHash = hash(data);
+        synchronized (this) {
+            pathIndex.put(pathKey, contentHash);
+            if (blobs.containsKey(contentHash)) {
+                return;
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocateDirect(data.length);
+            buffer.put(data).flip();
+            blobs.put(contentHash, buffer);
+            currentBytes += data.length;
+            evictToCapacity();
+        }
+    }
+
+    public synchronized void invalidate(String pathKey) {
+        pathIndex.remove(pathKey);
+    }
+
+    /**
+     * Drops every path of a repository from the index, across all versions. Blobs themselves age out
+     * through LRU eviction.
+     */
+    public synchronized void invalidateRepository(Long userId, String repositoryId) {
+        String prefix = String.format("%d/%s/", userId, repositoryId);
+        pathIndex.keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    /**
+     * Builds the index key of a path as of the given version of the repository metadata.
+     */
+    public static String pathKey(Long userId, String repositoryId, long version, String path) {
+        return String.format("%d/%s/%d/%s", userId, repositoryId, version, path);
+    }
+
+    public synchronized long getCurrentBytes() {
+        return currentBytes;
+    }
+
+    public synchronized int getEntryCount() {
+        return blobs.size();
+    }
+
+    private void evictToCapacity() {
+        Iterator<Map.Entry<String, ByteBuffer>> iterator = blobs.entrySet().iterator();
+        while (currentBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, ByteBuffer> eldest = iterator.next();
+            currentBytes -= eldest.getValue().capacity();
+            iterator.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private static String hash(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
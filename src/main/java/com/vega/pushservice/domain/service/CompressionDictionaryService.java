@@ -0,0 +1,196 @@
+package com.vega.pushservice.domain.service;
+
+import com.vega.pushservice.domain.dto.PushRequest;
+import com.vega.pushservice.domain.model.CompressionDictionary;
+import com.vega.pushservice.domain.repository.CompressionDictionaryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Trains and versions per-repository compression dictionaries from the small files of a push.
+ * Older versions are kept because objects written with them still reference them by ID.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CompressionDictionaryService {
+
+    private static final int GRAM_LENGTH = 12;
+    private static final int SEGMENT_LENGTH = 48;
+    /** Only grams whose hash has these bits clear are counted; the same gram is picked in every sample. */
+    private static final long GRAM_SAMPLE_MASK = 7;
+    private static final int MAX_TRACKED_GRAMS = 65536;
+
+    private final CompressionDictionaryRepository compressionDictionaryRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${compression.dictionary.enabled:true}")
+    private boolean enabled;
+
+    @Value("${compression.dictionary.small-object-bytes:8192}")
+    private int smallObjectBytes;
+
+    @Value("${compression.dictionary.min-samples:8}")
+    private int minSamples;
+
+    @Value("${compression.dictionary.max-size-bytes:16384}")
+    private int maxSizeBytes;
+
+    @Value("${compression.dictionary.sample-budget-bytes:1048576}")
+    private int sampleBudgetBytes;
+
+    @Value("${compression.dictionary.retrain-after-ms:604800000}")
+    private long retrainAfterMillis;
+
+    /**
+     * Returns the dictionary to compress this push with, training a new version first when the
+     * repository has none or its latest one is stale and the push has enough small files to sample.
+     * Called before the push transaction starts: new versions commit on their own before any object
+     * references them, and the push never holds a second connection while training.
+     */
+    public CompressionDictionary dictionaryForPush(Long userId, PushRequest request) {
+        if (!enabled) {
+            return null;
+        }
+
+        CompressionDictionary latest = compressionDictionaryRepository
+                .findFirstByRepositoryIdAndUserIdOrderByVersionDesc(request.getRepositoryId(), userId)
+                .orElse(null);
+        if (latest != null && latest.getCreatedAt() != null
+                && latest.getCreatedAt().plus(Duration.ofMillis(retrainAfterMillis)).isAfter(LocalDateTime.now())) {
+            return latest;
+        }
+
+        List<byte[]> samples = collectSamples(request);
+        if (samples.size() < minSamples) {
+            return latest;
+        }
+
+        byte[] content = train(samples);
+        if (content.length == 0) {
+            return latest;
+        }
+
+        CompressionDictionary dictionary;
+        try {
+            dictionary = transactionTemplate.execute(status -> compressionDictionaryRepository.save(
+                    CompressionDictionary.builder()
+                            .userId(userId)
+                            .repositoryId(request.getRepositoryId())
+                            .version(latest != null ? latest.getVersion() + 1 : 1)
+                            .content(content)
+                            .sampleCount(samples.size())
+                            .build()));
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent push of the same repository trained this version first
+            return compressionDictionaryRepository
+                    .findFirstByRepositoryIdAndUserIdOrderByVersionDesc(request.getRepositoryId(), userId)
+                    .orElse(latest);
+        }
+
+        log.info("Trained compression dictionary v{} ({} bytes from {} samples) for repository: {}",
+                dictionary.getVersion(), content.length, samples.size(), request.getRepositoryId());
+        return dictionary;
+    }
+
+    private List<byte[]> collectSamples(PushRequest request) {
+        List<byte[]> samples = new ArrayList<>();
+        long budget = sampleBudgetBytes;
+        for (PushRequest.FileInfo file : request.getFiles()) {
+            byte[] content = file.getContent().getBytes();
+            if (content.length >= GRAM_LENGTH && content.length <= smallObjectBytes && content.length <= budget) {
+                samples.add(content);
+                budget -= content.length;
+            }
+        }
+        return samples;
+    }
+
+    /**
+     * Builds a dictionary from the byte sequences shared by the most samples. Segments around the
+     * most common grams are concatenated with the most common last, since deflate encodes short
+     * back-references to the end of the dictionary most cheaply. Only a hash-selected subset of
+     * grams is counted, and at most {@link #MAX_TRACKED_GRAMS} of them, to bound training memory.
+     */
+    byte[] train(List<byte[]> samples) {
+        // gram hash -> {sample frequency, last sample seen, sample index, offset}
+        Map<Long, int[]> grams = new HashMap<>();
+        for (int s = 0; s < samples.size(); s++) {
+            byte[] sample = samples.get(s);
+            for (int i = 0; i + GRAM_LENGTH <= sample.length; i++) {
+                long hash = gramHash(sample, i);
+                if ((hash & GRAM_SAMPLE_MASK) != 0) {
+                    continue;
+                }
+                int[] stats = grams.get(hash);
+                if (stats == null) {
+                    if (grams.size() < MAX_TRACKED_GRAMS) {
+                        grams.put(hash, new int[] {1, s, s, i});
+                    }
+                } else if (stats[1] != s) {
+                    stats[0]++;
+                    stats[1] = s;
+                }
+            }
+        }
+
+        List<int[]> candidates = new ArrayList<>();
+        for (int[] stats : grams.values()) {
+            if (stats[0] >= 2) {
+                candidates.add(stats);
+            }
+        }
+        candidates.sort(Comparator.comparingInt((int[] stats) -> stats[0]).reversed());
+
+        List<byte[]> segments = new ArrayList<>();
+        Set<Long> covered = new HashSet<>();
+        int size = 0;
+        for (int[] stats : candidates) {
+            if (size >= maxSizeBytes) {
+                break;
+            }
+            byte[] sample = samples.get(stats[2]);
+            if (covered.contains(gramHash(sample, stats[3]))) {
+                continue;
+            }
+
+            int length = Math.min(Math.min(SEGMENT_LENGTH, sample.length - stats[3]), maxSizeBytes - size);
+            byte[] segment = new byte[length];
+            System.arraycopy(sample, stats[3], segment, 0, length);
+            for (int i = 0; i + GRAM_LENGTH <= length; i++) {
+                covered.add(gramHash(segment, i));
+            }
+            segments.add(segment);
+            size += length;
+        }
+
+        Collections.reverse(segments);
+        ByteArrayOutputStream dictionary = new ByteArrayOutputStream(size);
+        segments.forEach(dictionary::writeBytes);
+        return dictionary.toByteArray();
+    }
+
+    private static long gramHash(byte[] data, int offset) {
+        long hash = 1125899906842597L;
+        for (int i = offset; i < offset + GRAM_LENGTH; i++) {
+            hash = 31 * hash + data[i];
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,182 @@
+package com.vega.pushservice.domain.service;
+
+import com.vega.pushservice.domain.model.CompressionDictionary;
+import com.vega.pushservice.domain.repository.CompressionDictionaryRepository;
+import com.vega.pushservice.infrastructure.jfr.CompressionEvent;
+import com.vega.pushservice.infrastructure.jfr.PushTrace;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses stored objects with gzip, or with deflate primed by a trained repository dictionary
+ * for small objects. Dictionary-compressed objects start with a "VD" header carrying the
+ * dictionary ID, so decompression picks the right format without any outside context.
+ */
+@Service
+@RequiredArgsConstructor
+public class CompressionService {
+
+    private static final byte[] DICTIONARY_MAGIC = {'V', 'D', 1};
+    private static final int DICTIONARY_HEADER_LENGTH = DICTIONARY_MAGIC.length + Long.BYTES;
+
+    private final CompressionDictionaryRepository compressionDictionaryRepository;
+
+    @Value("${compression.dictionary.small-object-bytes:8192}")
+    private int smallObjectBytes;
+
+    @Value("${compression.dictionary.cache-entries:1024}")
+    private int dictionaryCacheEntries;
+
+    private final Map<Long, byte[]> dictionaryCache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, byte[]> eldest) {
+            return size() > dictionaryCacheEntries;
+        }
+    };
+
+    public byte[] compressData(byte[] data) throws IOException {
+        try (ByteArrayOutputStream baos = new ByteArrayOutputStream();
+             GZIPOutputStream gzipOut = new GZIPOutputStream(baos)) {
+
+            gzipOut.write(data);
+            gzipOut.finish();
+            return baos.toByteArray();
+        }
+    }
+
+    /**
+     * Compresses with the dictionary when one is given and the object is small enough to benefit,
+     * falling back to plain gzip otherwise.
+     */
+    public byte[] compressData(byte[] data, CompressionDictionary dictionary) throws IOException {
+        if (dictionary == null || data.length > smallObjectBytes) {
+            return compressData(data);
+        }
+
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try (ByteArrayOutputStream baos = new ByteArrayOutputStream(data.length / 2 + DICTIONARY_HEADER_LENGTH)) {
+            baos.write(DICTIONARY_MAGIC);
+            baos.write(ByteBuffer.allocate(Long.BYTES).putLong(dictionary.getId()).array());
+
+            deflater.setDictionary(dictionary.getContent());
+            deflater.setInput(data);
+            deflater.finish();
+
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                int length = deflater.deflate(buffer);
+                baos.write(buffer, 0, length);
+            }
+            return baos.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Compresses a pushed file, recording a {@link CompressionEvent} for it.
+     */
+    public byte[] compressFile(String path, byte[] data, CompressionDictionary dictionary) throws IOException {
+        CompressionEvent event = new CompressionEvent();
+        event.begin();
+        byte[] compressedData = compressData(data, dictionary);
+        if (event.shouldCommit()) {
+            event.setPushId(PushTrace.currentPushId());
+            event.setRepositoryId(PushTrace.currentRepositoryId());
+            event.setFile(path);
+            event.setRawBytes(data.length);
+            event.setCompressedBytes(compressedData.length);
+            event.setDictionary(hasDictionaryHeader(compressedData));
+            event.commit();
+        }
+        return compressedData;
+    }
+
+    public byte[] decompressData(byte[] compressedData) throws IOException {
+        if (hasDictionaryHeader(compressedData)) {
+            return inflateWithDictionary(compressedData);
+        }
+
+        try (ByteArrayInputStream bais = new ByteArrayInputStream(compressedData);
+             GZIPInputStream gzipIn = new GZIPInputStream(bais);
+             ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+
+            byte[] buffer = new byte[4096];
+            int bytesRead;
+            while ((bytesRead = gzipIn.read(buffer)) != -1) {
+                baos.write(buffer, 0, bytesRead);
+            }
+            return baos.toByteArray();
+        }
+    }
+
+    private boolean hasDictionaryHeader(byte[] compressedData) {
+        if (compressedData.length < DICTIONARY_HEADER_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < DICTIONARY_MAGIC.length; i++) {
+            if (compressedData[i] != DICTIONARY_MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private byte[] inflateWithDictionary(byte[] compressedData) throws IOException {
+        long dictionaryId = ByteBuffer.wrap(compressedData, DICTIONARY_MAGIC.length, Long.BYTES).getLong();
+        byte[] dictionary = getDictionary(dictionaryId);
+
+        Inflater inflater = new Inflater();
+        try (ByteArrayOutputStream baos = new ByteArrayOutputStream(compressedData.length * 3)) {
+            inflater.setInput(compressedData, DICTIONARY_HEADER_LENGTH, compressedData.length - DICTIONARY_HEADER_LENGTH);
+
+            byte[] buffer = new byte[4096];
+            while (!inflater.finished()) {
+                int length = inflater.inflate(buffer);
+                if (length == 0 && !inflater.finished()) {
+                    if (inflater.needsDictionary()) {
+                        inflater.setDictionary(dictionary);
+                    } else if (inflater.needsInput()) {
+                        throw new IOException("Truncated compressed data");
+                    }
+                }
+                baos.write(buffer, 0, length);
+            }
+            return baos.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt compressed data", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private byte[] getDictionary(long dictionaryId) throws IOException {
+        synchronized (dictionaryCache) {
+            byte[] cached = dictionaryCache.get(dictionaryId);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        byte[] content = compressionDictionaryRepository.findById(dictionaryId)
+                .map(CompressionDictionary::getContent)
+                .orElseThrow(() -> new IOException("Compression dictionary not found: " + dictionaryId));
+        synchronized (dictionaryCache) {
+            dictionaryCache.put(dictionaryId, content);
+        }
+        return content;
+    }
+}
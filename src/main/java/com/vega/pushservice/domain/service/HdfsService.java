@@ -1,6 +1,11 @@
 package com.vega.pushservice.domain.service;
 
 import com.vega.pushservice.domain.dto.PushRequest;
+import com.vega.pushservice.domain.model.CompressionDictionary;
+import com.vega.pushservice.infrastructure.config.HdfsShardProperties;
+import com.vega.pushservice.infrastructure.jfr.HdfsOperationEvent;
+import com.vega.pushservice.infrastructure.jfr.PushTrace;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.*;
@@ -10,19 +15,16 @@ import org.springframework.stereotype.Service;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
+import java.io.InterruptedIOException;
 import java.io.ByteArrayOutputStream;
 
 @Service
+@RequiredArgsConstructor
 @Slf4j
 public class HdfsService {
     
-    @Value("${hadoop.hdfs.uri}")
-    private String hdfsUri;
-    
-    @Value("${hadoop.hdfs.base-path}")
-    private String basePath;
+    private final CompressionService compressionService;
+    private final ShardRoutingService shardRoutingService;
     
     @Value("${hadoop.hdfs.replication}")
     private short replication;
@@ -30,122 +32,181 @@ public class HdfsService {
     @Value("${hadoop.hdfs.block-size}")
     private long blockSize;
     
-    private FileSystem getFileSystem() throws IOException {
+    private Configuration getConfiguration(HdfsShardProperties.Shard shard) {
         Configuration conf = new Configuration();
-        conf.set("fs.defaultFS", hdfsUri);
+        conf.set("fs.defaultFS", shard.getUri());
         conf.set("dfs.replication", String.valueOf(replication));
-        return FileSystem.get(conf);
+        return conf;
+    }
+    
+    /**
+     * Returns the JVM-wide cached FileSystem for a shard. It is shared by all concurrent pushes and
+     * reads, so callers must not close it; long-running jobs use {@link FileSystem#newInstance}.
+     */
+    private FileSystem getFileSystem(HdfsShardProperties.Shard shard) throws IOException {
+        return FileSystem.get(getConfiguration(shard));
+    }
+    
+    public String getRepositoryPath(String shard, Long userId, String repositoryId) {
+        return String.format("%s/%d/%s", shardRoutingService.getShard(shard).getBasePath(), userId, repositoryId);
     }
     
-    public String uploadRepository(Long userId, String repositoryId, PushRequest pushRequest) throws IOException {
-        String hdfsPath = String.format("%s/%d/%s", basePath, userId, repositoryId);
+    public String uploadRepository(String shard, Long userId, String repositoryId, PushRequest pushRequest,
+                                   CompressionDictionary dictionary) throws IOException {
+        String hdfsPath = getRepositoryPath(shard, userId, repositoryId);
         
-        try (FileSystem fs = getFileSystem()) {
-            // Create directory structure
-            Path repoPath = new Path(hdfsPath);
-            if (!fs.exists(repoPath)) {
-                fs.mkdirs(repoPath);
-            }
+        FileSystem fs = getFileSystem(shardRoutingService.getShard(shard));
+        // Create directory structure
+        Path repoPath = new Path(hdfsPath);
+        if (!fs.exists(repoPath)) {
+            fs.mkdirs(repoPath);
+        }
+        
+        // Upload each file
+        for (PushRequest.FileInfo file : pushRequest.getFiles()) {
+            String filePath = String.format("%s/%s", hdfsPath, file.getPath());
+            Path hdfsFilePath = new Path(filePath);
             
-            // Upload each file
-            for (PushRequest.FileInfo file : pushRequest.getFiles()) {
-                String filePath = String.format("%s/%s", hdfsPath, file.getPath());
-                Path hdfsFilePath = new Path(filePath);
-                
-                // Create parent directories if they don't exist
-                Path parentDir = hdfsFilePath.getParent();
-                if (parentDir != null && !fs.exists(parentDir)) {
-                    fs.mkdirs(parentDir);
-                }
-                
-                // Compress and upload file
-                byte[] compressedData = compressData(file.getContent().getBytes());
-                try (InputStream inputStream = new ByteArrayInputStream(compressedData);
-                     FSDataOutputStream outputStream = fs.create(hdfsFilePath, true, 4096, replication, blockSize)) {
-                    
-                    byte[] buffer = new byte[4096];
-                    int bytesRead;
-                    while ((bytesRead = inputStream.read(buffer)) != -1) {
-                        outputStream.write(buffer, 0, bytesRead);
-                    }
-                }
-                
-                log.info("Uploaded file: {} to HDFS path: {}", file.getPath(), filePath);
+            // Create parent directories if they don't exist
+            Path parentDir = hdfsFilePath.getParent();
+            if (parentDir != null && !fs.exists(parentDir)) {
+                fs.mkdirs(parentDir);
             }
             
-            // Create metadata file
-            createMetadataFile(fs, hdfsPath, pushRequest);
+            // Compress and upload file
+            byte[] compressedData = compressionService.compressFile(
+                    file.getPath(), file.getContent().getBytes(), dictionary);
+            writeFile(fs, hdfsFilePath, compressedData);
             
-            return hdfsPath;
+            log.info("Uploaded file: {} to HDFS path: {}", file.getPath(), filePath);
         }
+        
+        // Create metadata file
+        createMetadataFile(fs, hdfsPath, pushRequest);
+        
+        return hdfsPath;
     }
     
-    public String downloadRepository(Long userId, String repositoryId) throws IOException {
-        String hdfsPath = String.format("%s/%d/%s", basePath, userId, repositoryId);
+    public String downloadRepository(String shard, Long userId, String repositoryId) throws IOException {
+        String hdfsPath = getRepositoryPath(shard, userId, repositoryId);
         
-        try (FileSystem fs = getFileSystem()) {
-            Path repoPath = new Path(hdfsPath);
-            if (!fs.exists(repoPath)) {
-                throw new IOException("Repository not found: " + repositoryId);
+        FileSystem fs = getFileSystem(shardRoutingService.getShard(shard));
+        Path repoPath = new Path(hdfsPath);
+        if (!fs.exists(repoPath)) {
+            throw new IOException("Repository not found: " + repositoryId);
+        }
+        
+        // List all files in the repository
+        RemoteIterator<LocatedFileStatus> fileIterator = fs.listFiles(repoPath, true);
+        StringBuilder repositoryContent = new StringBuilder();
+        
+        while (fileIterator.hasNext()) {
+            LocatedFileStatus fileStatus = fileIterator.next();
+            if (fileStatus.isFile()) {
+                String relativePath = fileStatus.getPath().toString().substring(hdfsPath.length() + 1);
+                repositoryContent.append(relativePath).append("\n");
             }
+        }
+        
+        return repositoryContent.toString();
+    }
+    
+    /**
+     * Reads and decompresses one file; called on every blob cache miss.
+     */
+    public byte[] readFile(String shard, Long userId, String repositoryId, String path) throws IOException {
+        String filePath = String.format("%s/%s", getRepositoryPath(shard, userId, repositoryId), path);
+        FileSystem fs = getFileSystem(shardRoutingService.getShard(shard));
+        Path hdfsFilePath = new Path(filePath);
+        if (!fs.exists(hdfsFilePath)) {
+            throw new IOException("File not found: " + path);
+        }
+        
+        byte[] compressedData;
+        try (FSDataInputStream inputStream = fs.open(hdfsFilePath);
+             ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
             
-            // List all files in the repository
-            RemoteIterator<LocatedFileStatus> fileIterator = fs.listFiles(repoPath, true);
-            StringBuilder repositoryContent = new StringBuilder();
-            
-            while (fileIterator.hasNext()) {
-                LocatedFileStatus fileStatus = fileIterator.next();
-                if (fileStatus.isFile()) {
-                    String relativePath = fileStatus.getPath().toString().substring(hdfsPath.length() + 1);
-                    repositoryContent.append(relativePath).append("\n");
-                }
+            byte[] buffer = new byte[4096];
+            int bytesRead;
+            while ((bytesRead = inputStream.read(buffer)) != -1) {
+                baos.write(buffer, 0, bytesRead);
             }
-            
-            return repositoryContent.toString();
+            compressedData = baos.toByteArray();
         }
+        
+        return compressionService.decompressData(compressedData);
     }
     
-    public boolean repositoryExists(Long userId, String repositoryId) throws IOException {
-        String hdfsPath = String.format("%s/%d/%s", basePath, userId, repositoryId);
+    public boolean repositoryExists(String shard, Long userId, String repositoryId) throws IOException {
+        String hdfsPath = getRepositoryPath(shard, userId, repositoryId);
         
-        try (FileSystem fs = getFileSystem()) {
-            return fs.exists(new Path(hdfsPath));
-        }
+        FileSystem fs = getFileSystem(shardRoutingService.getShard(shard));
+        return fs.exists(new Path(hdfsPath));
     }
     
-    public void deleteRepository(Long userId, String repositoryId) throws IOException {
-        String hdfsPath = String.format("%s/%d/%s", basePath, userId, repositoryId);
+    /**
+     * Deletes a repository file by file, pausing after every batch so large deletes do not
+     * flood the NameNode. Safe to re-run after a partial failure.
+     * Uses its own uncached FileSystem instance, which it can close when done without affecting
+     * the shared cached instance that concurrent pushes and reads hold for the same NameNode.
+     */
+    public void deleteRepositoryInBatches(String shard, Long userId, String repositoryId, int batchSize,
+                                          long pauseMillis) throws IOException {
+        String hdfsPath = getRepositoryPath(shard, userId, repositoryId);
         
-        try (FileSystem fs = getFileSystem()) {
+        try (FileSystem fs = FileSystem.newInstance(getConfiguration(shardRoutingService.getShard(shard)))) {
             Path repoPath = new Path(hdfsPath);
-            if (fs.exists(repoPath)) {
-                fs.delete(repoPath, true);
-                log.info("Deleted repository: {} from HDFS path: {}", repositoryId, hdfsPath);
+            if (!fs.exists(repoPath)) {
+                return;
             }
-        }
-    }
-    
-    private byte[] compressData(byte[] data) throws IOException {
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream();
-             GZIPOutputStream gzipOut = new GZIPOutputStream(baos)) {
             
-            gzipOut.write(data);
-            gzipOut.finish();
-            return baos.toByteArray();
+            RemoteIterator<LocatedFileStatus> fileIterator = fs.listFiles(repoPath, true);
+            int deleted = 0;
+            while (fileIterator.hasNext()) {
+                fs.delete(fileIterator.next().getPath(), false);
+                if (++deleted % batchSize == 0) {
+                    try {
+                        Thread.sleep(pauseMillis);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Interrupted while deleting repository: " + repositoryId);
+                    }
+                }
+            }
+            
+            // Only empty directories are left at this point
+            fs.delete(repoPath, true);
+            log.info("Deleted {} files of repository: {} from HDFS path: {}", deleted, repositoryId, hdfsPath);
         }
     }
     
-    private byte[] decompressData(byte[] compressedData) throws IOException {
-        try (ByteArrayInputStream bais = new ByteArrayInputStream(compressedData);
-             GZIPInputStream gzipIn = new GZIPInputStream(bais);
-             ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+    /**
+     * Copies a repository directory to another shard, replacing any partial copy left by an earlier attempt.
+     * Uses uncached FileSystem instances so shards sharing a NameNode URI are not closed twice.
+     *
+     * @return the repository path on the target shard
+     */
+    public String copyRepository(String sourceShard, String targetShard, Long userId, String repositoryId)
+            throws IOException {
+        String sourcePath = getRepositoryPath(sourceShard, userId, repositoryId);
+        String targetPath = getRepositoryPath(targetShard, userId, repositoryId);
+        Configuration targetConf = getConfiguration(shardRoutingService.getShard(targetShard));
+        
+        try (FileSystem sourceFs = FileSystem.newInstance(getConfiguration(shardRoutingService.getShard(sourceShard)));
+             FileSystem targetFs = FileSystem.newInstance(targetConf)) {
+            Path source = new Path(sourcePath);
+            if (!sourceFs.exists(source)) {
+                throw new IOException("Repository not found: " + repositoryId);
+            }
             
-            byte[] buffer = new byte[4096];
-            int bytesRead;
-            while ((bytesRead = gzipIn.read(buffer)) != -1) {
-                baos.write(buffer, 0, bytesRead);
+            Path target = new Path(targetPath);
+            if (targetFs.exists(target)) {
+                targetFs.delete(target, true);
             }
-            return baos.toByteArray();
+            FileUtil.copy(sourceFs, source, targetFs, target, false, true, targetConf);
+            
+            log.info("Copied repository: {} from shard: {} to shard: {}", repositoryId, sourceShard, targetShard);
+            return targetPath;
         }
     }
     
@@ -159,8 +220,23 @@ public class HdfsService {
         );
         
         Path metadataPath = new Path(hdfsPath + "/.vega-metadata");
-        try (InputStream inputStream = new ByteArrayInputStream(metadataContent.getBytes());
-             FSDataOutputStream outputStream = fs.create(metadataPath, true, 4096, replication, blockSize)) {
+        writeFile(fs, metadataPath, metadataContent.getBytes());
+    }
+    
+    /**
+     * Writes a file, recording the create and the write/close separately since either can stall
+     * on the NameNode or the DataNode pipeline.
+     */
+    private void writeFile(FileSystem fs, Path path, byte[] data) throws IOException {
+        HdfsOperationEvent createEvent = new HdfsOperationEvent();
+        createEvent.begin();
+        FSDataOutputStream createdStream = fs.create(path, true, 4096, replication, blockSize);
+        commitEvent(createEvent, "create", path, 0);
+        
+        HdfsOperationEvent closeEvent = new HdfsOperationEvent();
+        closeEvent.begin();
+        try (InputStream inputStream = new ByteArrayInputStream(data);
+             FSDataOutputStream outputStream = createdStream) {
             
             byte[] buffer = new byte[4096];
             int bytesRead;
@@ -168,6 +244,18 @@ public class HdfsService {
                 outputStream.write(buffer, 0, bytesRead);
             }
         }
+        commitEvent(closeEvent, "write-close", path, data.length);
+    }
+    
+    private void commitEvent(HdfsOperationEvent event, String operation, Path path, long bytes) {
+        if (event.shouldCommit()) {
+            event.setPushId(PushTrace.currentPushId());
+            event.setRepositoryId(PushTrace.currentRepositoryId());
+            event.setOperation(operation);
+            event.setPath(path.toString());
+            event.setBytes(bytes);
+            event.commit();
+        }
     }
 }
 
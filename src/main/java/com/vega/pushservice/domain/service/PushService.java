@@ -2,92 +2,82 @@ package com.vega.pushservice.domain.service;
 
 import com.vega.pushservice.domain.dto.PushRequest;
 import com.vega.pushservice.domain.dto.PushResponse;
+import com.vega.pushservice.domain.dto.UsageStatsResponse;
+import com.vega.pushservice.domain.model.CompressionDictionary;
 import com.vega.pushservice.domain.model.PushOperation;
 import com.vega.pushservice.domain.model.RepositoryMetadata;
+import com.vega.pushservice.domain.model.StorageTier;
+import com.vega.pushservice.domain.model.UserUsageStats;
 import com.vega.pushservice.domain.repository.PushOperationRepository;
 import com.vega.pushservice.domain.repository.RepositoryMetadataRepository;
+import com.vega.pushservice.infrastructure.jfr.MetadataSaveEvent;
+import com.vega.pushservice.infrastructure.jfr.PushEvent;
+import com.vega.pushservice.infrastructure.jfr.PushFlightRecorder;
+import com.vega.pushservice.infrastructure.jfr.PushTrace;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class PushService {
     
-    private final HdfsService hdfsService;
+    private final RepositoryStorageService repositoryStorageService;
     private final UserValidationService userValidationService;
     private final PushOperationRepository pushOperationRepository;
     private final RepositoryMetadataRepository repositoryMetadataRepository;
+    private final PushFlightRecorder pushFlightRecorder;
+    private final UsageStatsService usageStatsService;
+    private final CompressionDictionaryService compressionDictionaryService;
+    private final TransactionTemplate transactionTemplate;
     
-    @Transactional
+    @Value("${repository.deletion.grace-period-ms:86400000}")
+    private long deletionGracePeriodMillis;
+    
+    /**
+     * Pushes a repository. The push runs in its own transaction, which is started only after the
+     * user's usage counters exist and the compression dictionary is resolved, so it never needs a
+     * second connection; a failed push is recorded once that transaction has rolled back.
+     */
     public PushResponse pushRepository(String token, PushRequest request) {
-        // Validate user token
-        if (!userValidationService.validateToken(token)) {
-            throw new RuntimeException("Invalid or expired token");
-        }
-        
-        Long userId = userValidationService.getUserIdFromToken(token);
-        if (userId == null) {
-            throw new RuntimeException("Unable to determine user ID");
-        }
-        
-        // Create push operation record
-        PushOperation pushOperation = PushOperation.builder()
-                .userId(userId)
-                .repositoryId(request.getRepositoryId())
-                .repositoryName(request.getRepositoryName())
-                .hdfsPath("") // Will be updated after upload
-                .status(PushOperation.Status.PENDING)
-                .fileCount(request.getFiles().size())
-                .totalSize(calculateTotalSize(request))
-                .build();
-        
-        pushOperation = pushOperationRepository.save(pushOperation);
-        
+        PushEvent pushEvent = pushFlightRecorder.beginPush(request.getRepositoryId());
         try {
-            // Update status to in progress
-            pushOperation.setStatus(PushOperation.Status.IN_PROGRESS);
-            pushOperationRepository.save(pushOperation);
-            
-            // Upload to HDFS
-            String hdfsPath = hdfsService.uploadRepository(userId, request.getRepositoryId(), request);
-            pushOperation.setHdfsPath(hdfsPath);
-            
-            // Update or create repository metadata
-            updateRepositoryMetadata(userId, request, hdfsPath);
+            // Validate user token
+            if (!userValidationService.validateToken(token)) {
+                throw new RuntimeException("Invalid or expired token");
+            }
             
-            // Mark as completed
-            pushOperation.setStatus(PushOperation.Status.COMPLETED);
-            pushOperation.setCompletedAt(LocalDateTime.now());
-            pushOperationRepository.save(pushOperation);
-            
-            log.info("Successfully pushed repository: {} for user: {}", request.getRepositoryId(), userId);
+            Long userId = userValidationService.getUserIdFromToken(token);
+            if (userId == null) {
+                throw new RuntimeException("Unable to determine user ID");
+            }
+            usageStatsService.ensureStats(userId);
             
-            return PushResponse.builder()
-                    .pushId(pushOperation.getId())
-                    .repositoryId(request.getRepositoryId())
-                    .repositoryName(request.getRepositoryName())
-                    .hdfsPath(hdfsPath)
-                    .status(pushOperation.getStatus().name())
-                    .fileCount(pushOperation.getFileCount())
-                    .totalSize(pushOperation.getTotalSize())
-                    .createdAt(pushOperation.getCreatedAt())
-                    .message("Repository pushed successfully")
-                    .build();
-                    
-        } catch (Exception e) {
-            // Mark as failed
-            pushOperation.setStatus(PushOperation.Status.FAILED);
-            pushOperationRepository.save(pushOperation);
-            
-            log.error("Failed to push repository: {} for user: {}", request.getRepositoryId(), userId, e);
-            throw new RuntimeException("Failed to push repository: " + e.getMessage());
+            try {
+                CompressionDictionary dictionary = compressionDictionaryService.dictionaryForPush(userId, request);
+                return transactionTemplate.execute(status -> storePush(userId, request, dictionary, pushEvent));
+            } catch (RuntimeException e) {
+                // The rollback also discarded the operation record, so write the failure separately
+                recordFailedPush(userId, request);
+                throw e;
+            }
+        } catch (RuntimeException e) {
+            pushEvent.setStatus(PushOperation.Status.FAILED.name());
+            throw e;
+        } finally {
+            pushFlightRecorder.endPush(pushEvent);
         }
     }
     
@@ -137,7 +127,31 @@ public class PushService {
             throw new RuntimeException("Unable to determine user ID");
         }
         
-        return repositoryMetadataRepository.findByUserIdOrderByUpdatedAtDesc(userId);
+        return repositoryMetadataRepository.findByUserIdAndDeletedAtIsNullOrderByUpdatedAtDesc(userId);
+    }
+    
+    public byte[] getRepositoryFile(String token, String repositoryId, String path) {
+        // Validate user token
+        if (!userValidationService.validateToken(token)) {
+            throw new RuntimeException("Invalid or expired token");
+        }
+        
+        Long userId = userValidationService.getUserIdFromToken(token);
+        if (userId == null) {
+            throw new RuntimeException("Unable to determine user ID");
+        }
+        
+        // Check if repository belongs to user
+        RepositoryMetadata metadata = repositoryMetadataRepository
+                .findByRepositoryIdAndUserIdAndDeletedAtIsNull(repositoryId, userId)
+                .orElseThrow(() -> new RuntimeException("Repository not found or access denied"));
+        
+        try {
+            return repositoryStorageService.readFile(metadata, path);
+        } catch (Exception e) {
+            log.error("Failed to read file: {} of repository: {} for user: {}", path, repositoryId, userId, e);
+            throw new RuntimeException("Failed to read file: " + e.getMessage());
+        }
     }
     
     @Transactional
@@ -153,36 +167,187 @@ public class PushService {
         }
         
         // Check if repository belongs to user
-        RepositoryMetadata metadata = repositoryMetadataRepository.findByRepositoryIdAndUserId(repositoryId, userId)
+        RepositoryMetadata metadata = repositoryMetadataRepository
+                .findByRepositoryIdAndUserIdAndDeletedAtIsNull(repositoryId, userId)
                 .orElseThrow(() -> new RuntimeException("Repository not found or access denied"));
         
+        // Hide the repository now; RepositoryReaperService removes its data once the grace period ends
+        metadata.setDeletedAt(LocalDateTime.now());
+        metadata.setDeleteAttempts(0);
+        repositoryMetadataRepository.save(metadata);
+        usageStatsService.recordRepositoryChange(userId, -1, -metadata.getTotalSize(), -metadata.getFileCount());
+        
+        log.info("Marked repository: {} of user: {} as deleted", repositoryId, userId);
+    }
+    
+    @Transactional
+    public RepositoryMetadata restoreRepository(String token, String repositoryId) {
+        // Validate user token
+        if (!userValidationService.validateToken(token)) {
+            throw new RuntimeException("Invalid or expired token");
+        }
+        
+        Long userId = userValidationService.getUserIdFromToken(token);
+        if (userId == null) {
+            throw new RuntimeException("Unable to determine user ID");
+        }
+        
+        RepositoryMetadata metadata = repositoryMetadataRepository.findByRepositoryIdAndUserId(repositoryId, userId)
+                .filter(existing -> existing.getDeletedAt() != null)
+                .orElseThrow(() -> new RuntimeException("Deleted repository not found or access denied"));
+        
+        if (metadata.getDeletedAt().plus(Duration.ofMillis(deletionGracePeriodMillis)).isBefore(LocalDateTime.now())) {
+            throw new RuntimeException("Grace period for restoring repository has expired");
+        }
+        
+        // Seed the counters before the restore is flushed, so they do not count it twice
+        usageStatsService.ensureStats(userId);
+        metadata.setDeletedAt(null);
+        metadata.setDeleteAttempts(0);
+        usageStatsService.recordRepositoryChange(userId, 1, metadata.getTotalSize(), metadata.getFileCount());
+        
+        log.info("Restored repository: {} for user: {}", repositoryId, userId);
+        return repositoryMetadataRepository.save(metadata);
+    }
+    
+    public UsageStatsResponse getUsageStats(String token) {
+        // Validate user token
+        if (!userValidationService.validateToken(token)) {
+            throw new RuntimeException("Invalid or expired token");
+        }
+        
+        Long userId = userValidationService.getUserIdFromToken(token);
+        if (userId == null) {
+            throw new RuntimeException("Unable to determine user ID");
+        }
+        
+        UserUsageStats stats = usageStatsService.getStats(userId);
+        
+        Map<String, Long> pushesByStatus = new LinkedHashMap<>();
+        pushesByStatus.put(PushOperation.Status.PENDING.name(), stats.getPushesPending());
+        pushesByStatus.put(PushOperation.Status.IN_PROGRESS.name(), stats.getPushesInProgress());
+        pushesByStatus.put(PushOperation.Status.COMPLETED.name(), stats.getPushesCompleted());
+        pushesByStatus.put(PushOperation.Status.FAILED.name(), stats.getPushesFailed());
+        
+        return UsageStatsResponse.builder()
+                .userId(userId)
+                .repositoryCount(stats.getRepositoryCount())
+                .storedBytes(stats.getStoredBytes())
+                .fileCount(stats.getFileCount())
+                .pushesByStatus(pushesByStatus)
+                .updatedAt(stats.getUpdatedAt())
+                .reconciledAt(stats.getReconciledAt())
+                .build();
+    }
+    
+    private PushResponse storePush(Long userId, PushRequest request, CompressionDictionary dictionary,
+                                   PushEvent pushEvent) {
+        // Create push operation record
+        PushOperation pushOperation = PushOperation.builder()
+                .userId(userId)
+                .repositoryId(request.getRepositoryId())
+                .repositoryName(request.getRepositoryName())
+                .hdfsPath("") // Will be updated after upload
+                .status(PushOperation.Status.PENDING)
+                .fileCount(request.getFiles().size())
+                .totalSize(calculateTotalSize(request))
+                .build();
+        
+        pushOperation = savePushOperation(pushOperation);
+        PushTrace.setPushId(pushOperation.getId());
+        pushEvent.setUserId(userId);
+        pushEvent.setFileCount(pushOperation.getFileCount());
+        pushEvent.setContentBytes(pushOperation.getTotalSize());
+        
         try {
-            // Delete from HDFS
-            hdfsService.deleteRepository(userId, repositoryId);
+            // Update status to in progress
+            pushOperation.setStatus(PushOperation.Status.IN_PROGRESS);
+            savePushOperation(pushOperation);
+            
+            RepositoryMetadata existingMetadata = repositoryMetadataRepository
+                    .findByRepositoryIdAndUserId(request.getRepositoryId(), userId)
+                    .orElse(null);
+            if (existingMetadata != null && existingMetadata.getDeletedAt() != null) {
+                throw new RuntimeException("Repository is pending deletion, restore it before pushing");
+            }
+            
+            // Upload to the storage tier matching the repository size
+            StorageTier tier = repositoryStorageService.selectTier(request, existingMetadata);
+            String shard = repositoryStorageService.selectShard(userId, request.getRepositoryId(), existingMetadata);
+            String hdfsPath = repositoryStorageService.storeRepository(userId, request, tier, shard, existingMetadata,
+                    dictionary);
+            pushOperation.setHdfsPath(hdfsPath);
+            pushEvent.setStorageTier(tier.name());
+            
+            // Update or create repository metadata
+            long previousFileCount = existingMetadata != null ? existingMetadata.getFileCount() : 0;
+            long previousTotalSize = existingMetadata != null ? existingMetadata.getTotalSize() : 0;
+            updateRepositoryMetadata(existingMetadata, userId, request, hdfsPath, tier, shard);
+            usageStatsService.recordPush(userId, PushOperation.Status.COMPLETED,
+                    existingMetadata == null ? 1 : 0,
+                    pushOperation.getTotalSize() - previousTotalSize,
+                    pushOperation.getFileCount() - previousFileCount);
+            
+            // Mark as completed
+            pushOperation.setStatus(PushOperation.Status.COMPLETED);
+            pushOperation.setCompletedAt(LocalDateTime.now());
+            savePushOperation(pushOperation);
+            pushEvent.setStatus(pushOperation.getStatus().name());
             
-            // Delete metadata
-            repositoryMetadataRepository.delete(metadata);
+            log.info("Successfully pushed repository: {} for user: {}", request.getRepositoryId(), userId);
             
-            log.info("Successfully deleted repository: {} for user: {}", repositoryId, userId);
+            return PushResponse.builder()
+                    .pushId(pushOperation.getId())
+                    .repositoryId(request.getRepositoryId())
+                    .repositoryName(request.getRepositoryName())
+                    .hdfsPath(hdfsPath)
+                    .status(pushOperation.getStatus().name())
+                    .fileCount(pushOperation.getFileCount())
+                    .totalSize(pushOperation.getTotalSize())
+                    .createdAt(pushOperation.getCreatedAt())
+                    .message("Repository pushed successfully")
+                    .build();
+                    
         } catch (Exception e) {
-            log.error("Failed to delete repository: {} for user: {}", repositoryId, userId, e);
-            throw new RuntimeException("Failed to delete repository: " + e.getMessage());
+            log.error("Failed to push repository: {} for user: {}", request.getRepositoryId(), userId, e);
+            throw new RuntimeException("Failed to push repository: " + e.getMessage());
         }
     }
     
-    private void updateRepositoryMetadata(Long userId, PushRequest request, String hdfsPath) {
-        RepositoryMetadata existingMetadata = repositoryMetadataRepository
-                .findByRepositoryIdAndUserId(request.getRepositoryId(), userId)
-                .orElse(null);
-        
+    private void recordFailedPush(Long userId, PushRequest request) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                savePushOperation(PushOperation.builder()
+                        .userId(userId)
+                        .repositoryId(request.getRepositoryId())
+                        .repositoryName(request.getRepositoryName())
+                        .hdfsPath("")
+                        .status(PushOperation.Status.FAILED)
+                        .fileCount(request.getFiles().size())
+                        .totalSize(calculateTotalSize(request))
+                        .build());
+                usageStatsService.recordPush(userId, PushOperation.Status.FAILED, 0, 0, 0);
+            });
+        } catch (RuntimeException e) {
+            log.warn("Failed to record failed push of repository: {} for user: {}: {}",
+                    request.getRepositoryId(), userId, e.getMessage());
+        }
+    }
+    
+    private void updateRepositoryMetadata(RepositoryMetadata existingMetadata, Long userId, PushRequest request,
+                                          String hdfsPath, StorageTier tier, String shard) {
         if (existingMetadata != null) {
             // Update existing metadata
             existingMetadata.setRepositoryName(request.getRepositoryName());
             existingMetadata.setHdfsPath(hdfsPath);
+            existingMetadata.setStorageTier(tier);
+            existingMetadata.setShard(shard);
             existingMetadata.setLastCommitHash(request.getCommitHash());
             existingMetadata.setFileCount(request.getFiles().size());
             existingMetadata.setTotalSize(calculateTotalSize(request));
-            repositoryMetadataRepository.save(existingMetadata);
+            // Always dirty the row, so even an identical re-push gets a new version and new blob cache keys
+            existingMetadata.setUpdatedAt(LocalDateTime.now());
+            saveRepositoryMetadata(existingMetadata);
         } else {
             // Create new metadata
             RepositoryMetadata metadata = RepositoryMetadata.builder()
@@ -190,12 +355,35 @@ public class PushService {
                     .userId(userId)
                     .repositoryName(request.getRepositoryName())
                     .hdfsPath(hdfsPath)
+                    .storageTier(tier)
+                    .shard(shard)
                     .lastCommitHash(request.getCommitHash())
                     .fileCount(request.getFiles().size())
                     .totalSize(calculateTotalSize(request))
                     .build();
-            repositoryMetadataRepository.save(metadata);
+            saveRepositoryMetadata(metadata);
+        }
+    }
+    
+    private PushOperation savePushOperation(PushOperation pushOperation) {
+        return recordSave("PushOperation", () -> pushOperationRepository.save(pushOperation));
+    }
+    
+    private RepositoryMetadata saveRepositoryMetadata(RepositoryMetadata metadata) {
+        return recordSave("RepositoryMetadata", () -> repositoryMetadataRepository.save(metadata));
+    }
+    
+    private <T> T recordSave(String entity, Supplier<T> save) {
+        MetadataSaveEvent event = new MetadataSaveEvent();
+        event.begin();
+        T saved = save.get();
+        if (event.shouldCommit()) {
+            event.setPushId(PushTrace.currentPushId());
+            event.setRepositoryId(PushTrace.currentRepositoryId());
+            event.setEntity(entity);
+            event.commit();
         }
+        return saved;
     }
     
     private long calculateTotalSize(PushRequest request) {
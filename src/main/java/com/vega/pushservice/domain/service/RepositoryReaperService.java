@@ -0,0 +1,117 @@
+package com.vega.pushservice.domain.service;
+
+import com.vega.pushservice.domain.model.RepositoryMetadata;
+import com.vega.pushservice.domain.model.StorageTier;
+import com.vega.pushservice.domain.repository.RepositoryMetadataRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Permanently removes soft-deleted repositories once their restore grace period has passed.
+ * Each attempt is recorded on the metadata before any data is touched, so failed purges are
+ * retried on later runs up to the configured limit. Also empties the tier a repository moved
+ * away from, which pushes leave behind so that a rolled-back push never loses data.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RepositoryReaperService {
+    
+    private final RepositoryMetadataRepository repositoryMetadataRepository;
+    private final RepositoryStorageService repositoryStorageService;
+    
+    @Value("${repository.deletion.grace-period-ms:86400000}")
+    private long gracePeriodMillis;
+    
+    @Value("${repository.deletion.repositories-per-run:20}")
+    private int repositoriesPerRun;
+    
+    @Value("${repository.deletion.max-attempts:5}")
+    private int maxAttempts;
+    
+    @Scheduled(fixedDelayString = "${repository.deletion.interval-ms:60000}")
+    public void reap() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(Duration.ofMillis(gracePeriodMillis));
+        List<RepositoryMetadata> expired = repositoryMetadataRepository
+                .findByDeletedAtBeforeAndDeleteAttemptsLessThanOrderByDeletedAtAsc(
+                        cutoff, maxAttempts, PageRequest.of(0, repositoriesPerRun));
+        
+        for (RepositoryMetadata metadata : expired) {
+            purge(metadata);
+        }
+        
+        List<RepositoryMetadata> stale = repositoryMetadataRepository
+                .findByStaleStorageTierIsNotNullAndDeletedAtIsNullOrderByIdAsc(PageRequest.of(0, repositoriesPerRun));
+        for (RepositoryMetadata metadata : stale) {
+            cleanUpStaleTier(metadata);
+        }
+    }
+    
+    private void purge(RepositoryMetadata metadata) {
+        String repositoryId = metadata.getRepositoryId();
+        
+        try {
+            // Count the attempt first; the version bump also fences off a concurrent restore
+            metadata.setDeleteAttempts(metadata.getDeleteAttempts() + 1);
+            metadata = repositoryMetadataRepository.save(metadata);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            log.info("Repository: {} changed before purge, skipping", repositoryId);
+            return;
+        }
+        
+        try {
+            repositoryStorageService.deleteRepository(metadata);
+            repositoryMetadataRepository.delete(metadata);
+            log.info("Purged deleted repository: {} of user: {}", repositoryId, metadata.getUserId());
+        } catch (Exception e) {
+            if (metadata.getDeleteAttempts() >= maxAttempts) {
+                log.error("Giving up on purging repository: {} after {} attempts",
+                        repositoryId, metadata.getDeleteAttempts(), e);
+            } else {
+                log.warn("Failed to purge repository: {} (attempt {}), will retry: {}",
+                        repositoryId, metadata.getDeleteAttempts(), e.getMessage());
+            }
+        }
+    }
+    
+    private void cleanUpStaleTier(RepositoryMetadata metadata) {
+        String repositoryId = metadata.getRepositoryId();
+        StorageTier staleTier = metadata.getStaleStorageTier();
+        
+        // Claim the row before touching data. A reaper on another instance, or one holding an older
+        // read, fails here; pushes keep their tier while the marker is set, so the copy stays dead
+        if (repositoryMetadataRepository.claimVersion(metadata.getId(), metadata.getVersion()) == 0) {
+            log.info("Repository: {} changed before {} cleanup, retrying later", repositoryId, staleTier);
+            return;
+        }
+        metadata.setVersion(metadata.getVersion() + 1);
+        
+        try {
+            // Rows marked before pushes kept their tier can name the current tier, whose copy is live
+            if (staleTier != RepositoryStorageService.tierOf(metadata)) {
+                repositoryStorageService.deleteTier(metadata.getUserId(), repositoryId, staleTier,
+                        metadata.getStaleShard());
+            }
+            
+            metadata.setStaleStorageTier(null);
+            metadata.setStaleShard(null);
+            repositoryMetadataRepository.save(metadata);
+            log.info("Removed {} copy of repository: {} left by a tier change", staleTier, repositoryId);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            // A push landed during the delete; the marker stays and the next run finishes the cleanup
+            log.info("Repository: {} changed during {} cleanup, retrying later", repositoryId, staleTier);
+        } catch (Exception e) {
+            log.warn("Failed to remove {} copy of repository: {}, will retry: {}",
+                    staleTier, repositoryId, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.vega.pushservice.domain.service;
+
+import com.vega.pushservice.domain.dto.PushRequest;
+import com.vega.pushservice.domain.model.CompressionDictionary;
+import com.vega.pushservice.domain.model.InlineObject;
+import com.vega.pushservice.domain.model.RepositoryMetadata;
+import com.vega.pushservice.domain.model.StorageTier;
+import com.vega.pushservice.domain.repository.CompressionDictionaryRepository;
+import com.vega.pushservice.domain.repository.InlineObjectRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Routes repository contents to a storage tier: repositories below the inline threshold are kept
+ * in the database next to their metadata, larger ones go to the repository's HDFS shard. Reads are
+ * tier-transparent and served through the blob cache.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RepositoryStorageService {
+    
+    private final HdfsService hdfsService;
+    private final ShardRoutingService shardRoutingService;
+    private final CompressionService compressionService;
+    private final BlobCacheService blobCacheService;
+    private final InlineObjectRepository inlineObjectRepository;
+    private final CompressionDictionaryRepository compressionDictionaryRepository;
+    
+    @Value("${storage.inline.enabled:true}")
+    private boolean inlineEnabled;
+    
+    @Value("${storage.inline.threshold-bytes:65536}")
+    private long inlineThresholdBytes;
+    
+    @Value("${repository.deletion.batch-size:500}")
+    private int deletionBatchSize;
+    
+    @Value("${repository.deletion.batch-pause-ms:200}")
+    private long deletionBatchPauseMillis;
+    
+    /**
+     * Picks the tier for a push by size. While the copy left by an earlier tier change is still
+     * pending removal the repository stays in its current tier, so a push never writes into the
+     * location the reaper is emptying.
+     */
+    public StorageTier selectTier(PushRequest request, RepositoryMetadata existingMetadata) {
+        if (existingMetadata != null && existingMetadata.getStaleStorageTier() != null) {
+            return tierOf(existingMetadata);
+        }
+        if (!inlineEnabled) {
+            return StorageTier.HDFS;
+        }
+        
+        long contentBytes = 0;
+        for (PushRequest.FileInfo file : request.getFiles()) {
+            contentBytes += file.getContent().getBytes().length;
+            if (contentBytes > inlineThresholdBytes) {
+                return StorageTier.HDFS;
+            }
+        }
+        return StorageTier.INLINE;
+    }
+    
+    /**
+     * Returns the shard a repository lives on. Existing repositories keep their shard until the
+     * rebalancer moves them; new ones are placed by the hash ring.
+     */
+    public String selectShard(Long userId, String repositoryId, RepositoryMetadata existingMetadata) {
+        if (existingMetadata != null) {
+            return ShardRoutingService.resolveName(existingMetadata.getShard());
+        }
+        return shardRoutingService.shardFor(userId, repositoryId);
+    }
+    
+    /**
+     * Stores the pushed files in the given tier. When the tier changes, the previous one is recorded
+     * on the existing metadata instead of being emptied here, so a push that rolls back still has its
+     * old copy; {@link RepositoryReaperService} removes it once the change has committed.
+     * Inline pushes only touch the database, so they commit with the surrounding transaction.
+     * The dictionary, if any, comes from {@link CompressionDictionaryService#dictionaryForPush}.
+     *
+     * @return the storage location recorded in the repository metadata
+     */
+    public String storeRepository(Long userId, PushRequest request, StorageTier tier, String shard,
+                                  RepositoryMetadata existingMetadata, CompressionDictionary dictionary)
+            throws IOException {
+        String repositoryId = request.getRepositoryId();
+        StorageTier previousTier = existingMetadata != null ? tierOf(existingMetadata) : null;
+        String location;
+        
+        if (tier == StorageTier.INLINE) {
+            location = storeInline(userId, request, dictionary);
+        } else {
+            location = hdfsService.uploadRepository(shard, userId, repositoryId, request, dictionary);
+        }
+        
+        if (previousTier != null && previousTier != tier) {
+            existingMetadata.setStaleStorageTier(previousTier);
+            existingMetadata.setStaleShard(existingMetadata.getShard());
+        }
+        
+        // Reads switch to the new metadata version on commit; drop this instance's entries for older ones
+        afterCommit(() -> blobCacheService.invalidateRepository(userId, repositoryId));
+        return location;
+    }
+    
+    /**
+     * Reads a file as of the given metadata. The cache is keyed by the metadata version, so a
+     * caller holding freshly loaded metadata never gets content of an earlier push.
+     */
+    public byte[] readFile(RepositoryMetadata metadata, String path) throws IOException {
+        if (path.startsWith("/") || path.contains("..")) {
+            throw new IOException("Invalid file path: " + path);
+        }
+        
+        Long userId = metadata.getUserId();
+        String repositoryId = metadata.getRepositoryId();
+        String pathKey = BlobCacheService.pathKey(userId, repositoryId, metadata.getVersion(), path);
+        byte[] cached = blobCacheService.get(pathKey);
+        if (cached != null) {
+            return cached;
+        }
+        
+        byte[] data;
+        if (tierOf(metadata) == StorageTier.INLINE) {
+            InlineObject object = inlineObjectRepository.findByRepositoryIdAndUserIdAndPath(repositoryId, userId, path)
+                    .orElseThrow(() -> new IOException("File not found: " + path));
+            data = compressionService.decompressData(object.getCompressedContent());
+        } else {
+            data = hdfsService.readFile(metadata.getShard(), userId, repositoryId, path);
+        }
+        
+        blobCacheService.put(pathKey, data);
+        return data;
+    }
+    
+    /**
+     * Removes all stored content of a repository, including a copy left in its previous tier.
+     * HDFS data is deleted in throttled batches.
+     */
+    public void deleteRepository(RepositoryMetadata metadata) throws IOException {
+        Long userId = metadata.getUserId();
+        String repositoryId = metadata.getRepositoryId();
+        
+        deleteTier(userId, repositoryId, tierOf(metadata), metadata.getShard());
+        if (metadata.getStaleStorageTier() != null && metadata.getStaleStorageTier() != tierOf(metadata)) {
+            deleteTier(userId, repositoryId, metadata.getStaleStorageTier(), metadata.getStaleShard());
+        }
+        compressionDictionaryRepository.deleteByRepositoryIdAndUserId(repositoryId, userId);
+        afterCommit(() -> blobCacheService.invalidateRepository(userId, repositoryId));
+    }
+    
+    /**
+     * Removes the content a repository has in one tier, leaving metadata, dictionaries and the cache alone.
+     */
+    public void deleteTier(Long userId, String repositoryId, StorageTier tier, String shard) throws IOException {
+        if (tier == StorageTier.INLINE) {
+            int deleted = inlineObjectRepository.deleteByRepositoryIdAndUserId(repositoryId, userId);
+            log.info("Deleted {} inline objects of repository: {}", deleted, repositoryId);
+        } else {
+            hdfsService.deleteRepositoryInBatches(shard, userId, repositoryId,
+                    deletionBatchSize, deletionBatchPauseMillis);
+        }
+    }
+    
+    public static StorageTier tierOf(RepositoryMetadata metadata) {
+        // Rows written before tiering have no tier and always live in HDFS
+        return metadata.getStorageTier() != null ? metadata.getStorageTier() : StorageTier.HDFS;
+    }
+    
+    /**
+     * Runs the action once the surrounding transaction commits, or right away outside a transaction.
+     */
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+    
+    private String storeInline(Long userId, PushRequest request, CompressionDictionary dictionary)
+            throws IOException {
+        String repositoryId = request.getRepositoryId();
+        inlineObjectRepository.deleteByRepositoryIdAndUserId(repositoryId, userId);
+        
+        List<InlineObject> objects = new ArrayList<>(request.getFiles().size());
+        for (PushRequest.FileInfo file : request.getFiles()) {
+            byte[] content = file.getContent().getBytes();
+            objects.add(InlineObject.builder()
+                    .userId(userId)
+                    .repositoryId(repositoryId)
+                    .path(file.getPath())
+                    .compressedContent(compressionService.compressFile(file.getPath(), content, dictionary))
+                    .size((long) content.length)
+                    .build());
+        }
+        inlineObjectRepository.saveAll(objects);
+        
+        log.info("Stored {} files of repository: {} inline", objects.size(), repositoryId);
+        return String.format("inline://%d/%s", userId, repositoryId);
+    }
+}
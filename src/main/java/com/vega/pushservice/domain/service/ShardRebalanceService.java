@@ -0,0 +1,133 @@
+package com.vega.pushservice.domain.service;
+
+import com.vega.pushservice.domain.model.RepositoryMetadata;
+import com.vega.pushservice.domain.model.StorageTier;
+import com.vega.pushservice.domain.repository.RepositoryMetadataRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Moves repositories whose recorded shard no longer matches the hash ring, a few per run.
+ * Data is copied first and the metadata is switched with an optimistic version check, so a push
+ * that lands during the copy wins and the move is retried on a later pass. Copies that are no
+ * longer needed are deleted in throttled batches, like purged repositories.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ShardRebalanceService {
+    
+    private final RepositoryMetadataRepository repositoryMetadataRepository;
+    private final ShardRoutingService shardRoutingService;
+    private final HdfsService hdfsService;
+    
+    @Value("${hadoop.hdfs.rebalance.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${hadoop.hdfs.rebalance.scan-size:500}")
+    private int scanSize;
+    
+    @Value("${hadoop.hdfs.rebalance.batch-size:10}")
+    private int batchSize;
+    
+    @Value("${repository.deletion.batch-size:500}")
+    private int deletionBatchSize;
+    
+    @Value("${repository.deletion.batch-pause-ms:200}")
+    private long deletionBatchPauseMillis;
+    
+    private long cursor;
+    
+    @Scheduled(fixedDelayString = "${hadoop.hdfs.rebalance.interval-ms:60000}")
+    public void rebalance() {
+        if (!enabled) {
+            return;
+        }
+        
+        List<RepositoryMetadata> candidates = repositoryMetadataRepository
+                .findByIdGreaterThanOrderByIdAsc(cursor, PageRequest.of(0, scanSize));
+        if (candidates.isEmpty()) {
+            cursor = 0;
+            return;
+        }
+        
+        int moved = 0;
+        for (RepositoryMetadata metadata : candidates) {
+            if (metadata.getDeletedAt() != null) {
+                // Left to the reaper
+                cursor = metadata.getId();
+                continue;
+            }
+            
+            String currentShard = ShardRoutingService.resolveName(metadata.getShard());
+            String targetShard = shardRoutingService.shardFor(metadata.getUserId(), metadata.getRepositoryId());
+            
+            if (!targetShard.equals(currentShard)) {
+                if (moved >= batchSize) {
+                    // Resume from this repository on the next run
+                    return;
+                }
+                if (moveRepository(metadata, currentShard, targetShard)) {
+                    moved++;
+                }
+            }
+            cursor = metadata.getId();
+        }
+        
+        if (moved > 0) {
+            log.info("Rebalanced {} repositories across HDFS shards", moved);
+        }
+    }
+    
+    private boolean moveRepository(RepositoryMetadata metadata, String currentShard, String targetShard) {
+        Long userId = metadata.getUserId();
+        String repositoryId = metadata.getRepositoryId();
+        
+        try {
+            if (RepositoryStorageService.tierOf(metadata) == StorageTier.INLINE) {
+                // Inline repositories have no HDFS data; only the placement changes
+                metadata.setShard(targetShard);
+                repositoryMetadataRepository.save(metadata);
+                return false;
+            }
+            
+            String targetPath = hdfsService.copyRepository(currentShard, targetShard, userId, repositoryId);
+            
+            metadata.setShard(targetShard);
+            metadata.setHdfsPath(targetPath);
+            try {
+                repositoryMetadataRepository.save(metadata);
+            } catch (ObjectOptimisticLockingFailureException e) {
+                // Another instance may have finished the same move, in which case the target copy is live
+                boolean alreadyMoved = repositoryMetadataRepository.findById(metadata.getId())
+                        .map(current -> targetShard.equals(ShardRoutingService.resolveName(current.getShard())))
+                        .orElse(false);
+                if (alreadyMoved) {
+                    log.info("Repository: {} was already moved to shard: {}", repositoryId, targetShard);
+                } else {
+                    log.info("Repository: {} changed while moving to shard: {}, retrying later",
+                            repositoryId, targetShard);
+                    hdfsService.deleteRepositoryInBatches(targetShard, userId, repositoryId,
+                            deletionBatchSize, deletionBatchPauseMillis);
+                }
+                return false;
+            }
+            
+            hdfsService.deleteRepositoryInBatches(currentShard, userId, repositoryId,
+                    deletionBatchSize, deletionBatchPauseMillis);
+            log.info("Moved repository: {} from shard: {} to shard: {}", repositoryId, currentShard, targetShard);
+            return true;
+        } catch (Exception e) {
+            log.error("Failed to move repository: {} from shard: {} to shard: {}",
+                    repositoryId, currentShard, targetShard, e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.vega.pushservice.domain.service;
+
+import com.vega.pushservice.infrastructure.config.HdfsShardProperties;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Places repositories on HDFS shards with a consistent hash ring, so adding or removing a shard
+ * only moves the repositories whose ring segment changed hands. Draining shards stay addressable
+ * but are left off the ring.
+ */
+@Service
+@RequiredArgsConstructor
+@EnableConfigurationProperties(HdfsShardProperties.class)
+@Slf4j
+public class ShardRoutingService {
+    
+    /** Shard built from hadoop.hdfs.uri/base-path; repositories stored before sharding live here. */
+    public static final String DEFAULT_SHARD = "default";
+    
+    private final HdfsShardProperties properties;
+    
+    private final Map<String, HdfsShardProperties.Shard> shards = new HashMap<>();
+    private final TreeMap<Long, String> ring = new TreeMap<>();
+    
+    @PostConstruct
+    void init() {
+        HdfsShardProperties.Shard defaultShard = new HdfsShardProperties.Shard();
+        defaultShard.setName(DEFAULT_SHARD);
+        defaultShard.setUri(properties.getUri());
+        defaultShard.setBasePath(properties.getBasePath());
+        shards.put(DEFAULT_SHARD, defaultShard);
+        
+        if (properties.getShards().isEmpty()) {
+            addToRing(DEFAULT_SHARD);
+        } else {
+            for (HdfsShardProperties.Shard shard : properties.getShards()) {
+                shards.put(shard.getName(), shard);
+                if (shard.isDraining()) {
+                    log.info("HDFS shard: {} is draining, no repositories are placed on it", shard.getName());
+                } else {
+                    addToRing(shard.getName());
+                }
+            }
+        }
+        
+        if (ring.isEmpty()) {
+            throw new IllegalStateException("All configured HDFS shards are draining");
+        }
+        log.info("HDFS shard ring initialized with shards: {}", ring.values().stream().distinct().toList());
+    }
+    
+    public String shardFor(Long userId, String repositoryId) {
+        long hash = hash(userId + "/" + repositoryId);
+        SortedMap<Long, String> tail = ring.tailMap(hash);
+        return tail.isEmpty() ? ring.firstEntry().getValue() : tail.get(tail.firstKey());
+    }
+    
+    public HdfsShardProperties.Shard getShard(String name) {
+        HdfsShardProperties.Shard shard = shards.get(resolveName(name));
+        if (shard == null) {
+            throw new IllegalStateException("Unknown HDFS shard: " + name);
+        }
+        return shard;
+    }
+    
+    public static String resolveName(String name) {
+        return name != null ? name : DEFAULT_SHARD;
+    }
+    
+    private void addToRing(String shardName) {
+        for (int i = 0; i < properties.getVirtualNodes(); i++) {
+            ring.put(hash(shardName + "#" + i), shardName);
+        }
+    }
+    
+    private static long hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(digest).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 not available", e);
+        }
+    }
+}
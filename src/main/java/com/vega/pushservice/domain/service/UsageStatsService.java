@@ -0,0 +1,151 @@
+package com.vega.pushservice.domain.service;
+
+import com.vega.pushservice.domain.model.PushOperation;
+import com.vega.pushservice.domain.model.UserUsageStats;
+import com.vega.pushservice.domain.repository.PushOperationRepository;
+import com.vega.pushservice.domain.repository.RepositoryMetadataRepository;
+import com.vega.pushservice.domain.repository.UserUsageStatsRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Maintains per-user usage counters. Pushes, deletes and restores adjust them inside their own
+ * transactions, so reading a user's stats is a single primary-key lookup. A periodic
+ * reconciliation recomputes them from repository_metadata and push_operations to repair drift.
+ */
+@Service
+@Slf4j
+public class UsageStatsService {
+
+    private final UserUsageStatsRepository userUsageStatsRepository;
+    private final RepositoryMetadataRepository repositoryMetadataRepository;
+    private final PushOperationRepository pushOperationRepository;
+    private final TransactionTemplate newTransaction;
+
+    @Value("${usage-stats.reconcile.users-per-run:500}")
+    private int usersPerRun;
+
+    private long reconcileCursor;
+
+    public UsageStatsService(UserUsageStatsRepository userUsageStatsRepository,
+                             RepositoryMetadataRepository repositoryMetadataRepository,
+                             PushOperationRepository pushOperationRepository,
+                             PlatformTransactionManager transactionManager) {
+        this.userUsageStatsRepository = userUsageStatsRepository;
+        this.repositoryMetadataRepository = repositoryMetadataRepository;
+        this.pushOperationRepository = pushOperationRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Creates the user's counter row if it does not exist yet, seeded from the user's existing
+     * repositories and pushes so later increments start from the right totals. Call it before
+     * changing any counted data in the same transaction. A row created concurrently is left as is.
+     */
+    public void ensureStats(Long userId) {
+        if (userUsageStatsRepository.existsById(userId)) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        UserUsageStats stats = UserUsageStats.builder()
+                .userId(userId)
+                .updatedAt(now)
+                .reconciledAt(now)
+                .build();
+        recount(stats);
+        userUsageStatsRepository.insertIfAbsent(stats);
+    }
+
+    public void recordPush(Long userId, PushOperation.Status status, long repositoryDelta, long bytesDelta,
+                           long fileDelta) {
+        userUsageStatsRepository.increment(userId, repositoryDelta, bytesDelta, fileDelta,
+                status == PushOperation.Status.COMPLETED ? 1 : 0,
+                status == PushOperation.Status.FAILED ? 1 : 0,
+                LocalDateTime.now());
+    }
+
+    public void recordRepositoryChange(Long userId, long repositoryDelta, long bytesDelta, long fileDelta) {
+        userUsageStatsRepository.increment(userId, repositoryDelta, bytesDelta, fileDelta, 0, 0, LocalDateTime.now());
+    }
+
+    public UserUsageStats getStats(Long userId) {
+        return userUsageStatsRepository.findById(userId)
+                .orElseGet(() -> UserUsageStats.builder().userId(userId).build());
+    }
+
+    @Scheduled(fixedDelayString = "${usage-stats.reconcile.interval-ms:3600000}")
+    public void reconcile() {
+        List<Long> userIds = pushOperationRepository.findUserIdsAfter(reconcileCursor, PageRequest.of(0, usersPerRun));
+        if (userIds.isEmpty()) {
+            reconcileCursor = 0;
+            return;
+        }
+
+        for (Long userId : userIds) {
+            try {
+                reconcile(userId);
+            } catch (Exception e) {
+                log.warn("Failed to reconcile usage stats for user: {}: {}", userId, e.getMessage());
+            }
+            reconcileCursor = userId;
+        }
+    }
+
+    private void reconcile(Long userId) {
+        ensureStats(userId);
+        newTransaction.executeWithoutResult(status -> {
+            // Holding the row lock makes concurrent pushes apply their increments after the recount
+            UserUsageStats stats = userUsageStatsRepository.findByIdForUpdate(userId).orElseThrow();
+            long repositoryCount = stats.getRepositoryCount();
+            long storedBytes = stats.getStoredBytes();
+            long fileCount = stats.getFileCount();
+
+            recount(stats);
+            boolean drifted = stats.getRepositoryCount() != repositoryCount
+                    || stats.getStoredBytes() != storedBytes
+                    || stats.getFileCount() != fileCount;
+
+            stats.setReconciledAt(LocalDateTime.now());
+            userUsageStatsRepository.save(stats);
+
+            if (drifted) {
+                log.info("Corrected drifted usage stats for user: {}", userId);
+            }
+        });
+    }
+
+    /**
+     * Recomputes all counters of the row from repository_metadata and push_operations.
+     */
+    private void recount(UserUsageStats stats) {
+        Long userId = stats.getUserId();
+        RepositoryMetadataRepository.UsageTotals totals = repositoryMetadataRepository.sumUsageByUserId(userId);
+        stats.setRepositoryCount(totals.getRepositoryCount());
+        stats.setStoredBytes(totals.getStoredBytes());
+        stats.setFileCount(totals.getFileCount());
+
+        stats.setPushesPending(0L);
+        stats.setPushesInProgress(0L);
+        stats.setPushesCompleted(0L);
+        stats.setPushesFailed(0L);
+        for (PushOperationRepository.StatusCount count : pushOperationRepository.countByStatusForUserId(userId)) {
+            switch (count.getStatus()) {
+                case PENDING -> stats.setPushesPending(count.getCount());
+                case IN_PROGRESS -> stats.setPushesInProgress(count.getCount());
+                case COMPLETED -> stats.setPushesCompleted(count.getCount());
+                case FAILED -> stats.setPushesFailed(count.getCount());
+            }
+        }
+    }
+}
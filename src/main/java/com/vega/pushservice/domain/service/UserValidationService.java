@@ -1,5 +1,7 @@
 package com.vega.pushservice.domain.service;
 
+import com.vega.pushservice.infrastructure.jfr.PushTrace;
+import com.vega.pushservice.infrastructure.jfr.UserValidationEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -23,6 +25,9 @@ public class UserValidationService {
     private String userServiceUrl;
     
     public boolean validateToken(String token) {
+        UserValidationEvent event = new UserValidationEvent();
+        event.begin();
+        boolean valid = false;
         try {
             HttpHeaders headers = new HttpHeaders();
             headers.set("Authorization", "Bearer " + token);
@@ -33,14 +38,20 @@ public class UserValidationService {
                 url, HttpMethod.POST, entity, Boolean.class
             );
             
-            return response.getBody() != null && response.getBody();
+            valid = response.getBody() != null && response.getBody();
+            return valid;
         } catch (Exception e) {
             log.error("Token validation failed: {}", e.getMessage());
             return false;
+        } finally {
+            commitEvent(event, "validate", valid);
         }
     }
     
     public Long getUserIdFromToken(String token) {
+        UserValidationEvent event = new UserValidationEvent();
+        event.begin();
+        Long userId = null;
         try {
             HttpHeaders headers = new HttpHeaders();
             headers.set("Authorization", "Bearer " + token);
@@ -52,15 +63,27 @@ public class UserValidationService {
             );
             
             if (response.getBody() != null) {
-                Object userId = response.getBody().get("id");
-                if (userId instanceof Number) {
-                    return ((Number) userId).longValue();
+                Object id = response.getBody().get("id");
+                if (id instanceof Number) {
+                    userId = ((Number) id).longValue();
                 }
             }
         } catch (Exception e) {
             log.error("Failed to get user ID from token: {}", e.getMessage());
+        } finally {
+            commitEvent(event, "profile", userId != null);
+        }
+        return userId;
+    }
+    
+    private void commitEvent(UserValidationEvent event, String operation, boolean succeeded) {
+        if (event.shouldCommit()) {
+            event.setPushId(PushTrace.currentPushId());
+            event.setRepositoryId(PushTrace.currentRepositoryId());
+            event.setOperation(operation);
+            event.setSucceeded(succeeded);
+            event.commit();
         }
-        return null;
     }
 }
 
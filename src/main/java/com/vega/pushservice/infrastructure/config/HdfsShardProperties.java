@@ -0,0 +1,33 @@
+package com.vega.pushservice.infrastructure.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * HDFS namespaces repositories are spread across. Without configured shards the single
+ * {@code hadoop.hdfs.uri}/{@code hadoop.hdfs.base-path} pair acts as the only shard.
+ */
+@Data
+@ConfigurationProperties(prefix = "hadoop.hdfs")
+public class HdfsShardProperties {
+    
+    private String uri;
+    private String basePath;
+    private int virtualNodes = 128;
+    private List<Shard> shards = new ArrayList<>();
+    
+    @Data
+    public static class Shard {
+        private String name;
+        private String uri;
+        private String basePath;
+        /**
+         * Keeps the shard readable for the repositories on it but takes it off the hash ring, so
+         * the rebalancer moves them elsewhere and the shard can then be removed from the config.
+         */
+        private boolean draining;
+    }
+}
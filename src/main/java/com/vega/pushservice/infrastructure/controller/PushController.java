@@ -2,10 +2,12 @@ package com.vega.pushservice.infrastructure.controller;
 
 import com.vega.pushservice.domain.dto.PushRequest;
 import com.vega.pushservice.domain.dto.PushResponse;
+import com.vega.pushservice.domain.dto.UsageStatsResponse;
 import com.vega.pushservice.domain.model.RepositoryMetadata;
 import com.vega.pushservice.domain.service.PushService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -41,6 +43,17 @@ public class PushController {
         }
     }
     
+    @GetMapping("/stats")
+    public ResponseEntity<UsageStatsResponse> getUsageStats(
+            @RequestHeader("Authorization") String token) {
+        try {
+            UsageStatsResponse stats = pushService.getUsageStats(token);
+            return ResponseEntity.ok(stats);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     @GetMapping("/status/{pushId}")
     public ResponseEntity<PushResponse> getPushStatus(
             @RequestHeader("Authorization") String token,
@@ -72,6 +85,21 @@ class RepositoryController {
         }
     }
     
+    @GetMapping("/{repositoryId}/files")
+    public ResponseEntity<byte[]> getRepositoryFile(
+            @RequestHeader("Authorization") String token,
+            @PathVariable String repositoryId,
+            @RequestParam String path) {
+        try {
+            byte[] content = pushService.getRepositoryFile(token, repositoryId, path);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                    .body(content);
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
     @DeleteMapping("/{repositoryId}")
     public ResponseEntity<Void> deleteRepository(
             @RequestHeader("Authorization") String token,
@@ -83,6 +111,18 @@ class RepositoryController {
             return ResponseEntity.badRequest().build();
         }
     }
+    
+    @PostMapping("/{repositoryId}/restore")
+    public ResponseEntity<RepositoryMetadata> restoreRepository(
+            @RequestHeader("Authorization") String token,
+            @PathVariable String repositoryId) {
+        try {
+            RepositoryMetadata repository = pushService.restoreRepository(token, repositoryId);
+            return ResponseEntity.ok(repository);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
 }
 
 
@@ -0,0 +1,37 @@
+package com.vega.pushservice.infrastructure.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import lombok.Setter;
+
+@Name("com.vega.push.Compression")
+@Label("Compression")
+@Category({"Vega", "Storage"})
+@StackTrace(false)
+@Setter
+public class CompressionEvent extends Event {
+    
+    @Label("Push ID")
+    private long pushId;
+    
+    @Label("Repository ID")
+    private String repositoryId;
+    
+    @Label("File")
+    private String file;
+    
+    @Label("Raw Bytes")
+    @DataAmount
+    private long rawBytes;
+    
+    @Label("Compressed Bytes")
+    @DataAmount
+    private long compressedBytes;
+    
+    @Label("Dictionary")
+    private boolean dictionary;
+}
@@ -0,0 +1,33 @@
+package com.vega.pushservice.infrastructure.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import lombok.Setter;
+
+@Name("com.vega.push.HdfsOperation")
+@Label("HDFS Operation")
+@Category({"Vega", "Storage"})
+@StackTrace(false)
+@Setter
+public class HdfsOperationEvent extends Event {
+    
+    @Label("Push ID")
+    private long pushId;
+    
+    @Label("Repository ID")
+    private String repositoryId;
+    
+    @Label("Operation")
+    private String operation;
+    
+    @Label("Path")
+    private String path;
+    
+    @Label("Bytes")
+    @DataAmount
+    private long bytes;
+}
@@ -0,0 +1,25 @@
+package com.vega.pushservice.infrastructure.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import lombok.Setter;
+
+@Name("com.vega.push.MetadataSave")
+@Label("Metadata Save")
+@Category({"Vega", "Push"})
+@StackTrace(false)
+@Setter
+public class MetadataSaveEvent extends Event {
+    
+    @Label("Push ID")
+    private long pushId;
+    
+    @Label("Repository ID")
+    private String repositoryId;
+    
+    @Label("Entity")
+    private String entity;
+}
@@ -0,0 +1,41 @@
+package com.vega.pushservice.infrastructure.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import lombok.Setter;
+
+@Name("com.vega.push.Push")
+@Label("Push")
+@Description("A repository push, from token validation until its transaction completes")
+@Category({"Vega", "Push"})
+@StackTrace(false)
+@Setter
+public class PushEvent extends Event {
+    
+    @Label("Push ID")
+    private long pushId;
+    
+    @Label("User ID")
+    private long userId;
+    
+    @Label("Repository ID")
+    private String repositoryId;
+    
+    @Label("Storage Tier")
+    private String storageTier;
+    
+    @Label("File Count")
+    private int fileCount;
+    
+    @Label("Content Bytes")
+    @DataAmount
+    private long contentBytes;
+    
+    @Label("Status")
+    private String status;
+}
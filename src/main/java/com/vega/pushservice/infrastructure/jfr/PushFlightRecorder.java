@@ -0,0 +1,139 @@
+package com.vega.pushservice.infrastructure.jfr;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Emits a {@link PushEvent} per push and, when slow-push recording is enabled, keeps a rolling
+ * JFR recording that is dumped to disk whenever a push exceeds the latency threshold.
+ * Without an active recording the events are disabled and cost next to nothing.
+ */
+@Component
+@Slf4j
+public class PushFlightRecorder {
+
+    private static final List<Class<? extends jdk.jfr.Event>> EVENT_TYPES = List.of(
+            PushEvent.class, UserValidationEvent.class, MetadataSaveEvent.class,
+            CompressionEvent.class, HdfsOperationEvent.class);
+
+    @Value("${jfr.slow-push.enabled:false}")
+    private boolean enabled;
+
+    @Value("${jfr.slow-push.threshold-ms:5000}")
+    private long thresholdMillis;
+
+    @Value("${jfr.slow-push.max-age-ms:600000}")
+    private long maxAgeMillis;
+
+    @Value("${jfr.slow-push.max-size-bytes:268435456}")
+    private long maxSizeBytes;
+
+    @Value("${jfr.slow-push.min-dump-interval-ms:60000}")
+    private long minDumpIntervalMillis;
+
+    @Value("${jfr.slow-push.dump-directory:${java.io.tmpdir}/vega-jfr}")
+    private String dumpDirectory;
+
+    private Recording recording;
+    private ExecutorService dumpExecutor;
+    private final AtomicLong lastDumpMillis = new AtomicLong();
+
+    @PostConstruct
+    void start() throws Exception {
+        if (!enabled) {
+            return;
+        }
+
+        recording = new Recording(Configuration.getConfiguration("default"));
+        EVENT_TYPES.forEach(recording::enable);
+        recording.setName("vega-slow-push");
+        recording.setToDisk(true);
+        recording.setMaxAge(Duration.ofMillis(maxAgeMillis));
+        recording.setMaxSize(maxSizeBytes);
+        recording.start();
+
+        dumpExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "jfr-slow-push-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        log.info("Slow-push flight recorder started, threshold: {} ms, dumps to: {}", thresholdMillis, dumpDirectory);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (recording != null) {
+            dumpExecutor.shutdown();
+            recording.close();
+        }
+    }
+
+    /**
+     * Starts tracing a push on the current thread.
+     */
+    public PushEvent beginPush(String repositoryId) {
+        PushTrace.begin(repositoryId);
+        
+        PushEvent event = new PushEvent();
+        event.begin();
+        event.setRepositoryId(repositoryId);
+        return event;
+    }
+    
+    /**
+     * Finishes tracing the current thread's push. Called once the push transaction has completed,
+     * so the measured time includes the final flush and commit.
+     */
+    public void endPush(PushEvent event) {
+        long pushId = PushTrace.currentPushId();
+        String repositoryId = PushTrace.currentRepositoryId();
+        long elapsedNanos = PushTrace.elapsedNanos();
+        PushTrace.end();
+        
+        event.end();
+        if (event.shouldCommit()) {
+            event.setPushId(pushId);
+            event.commit();
+        }
+        
+        if (recording != null && elapsedNanos > thresholdMillis * 1_000_000) {
+            dumpSlowPush(pushId, repositoryId, elapsedNanos);
+        }
+    }
+    
+    private void dumpSlowPush(long pushId, String repositoryId, long elapsedNanos) {
+        long now = System.currentTimeMillis();
+        long lastDump = lastDumpMillis.get();
+        if (now - lastDump < minDumpIntervalMillis || !lastDumpMillis.compareAndSet(lastDump, now)) {
+            return;
+        }
+
+        dumpExecutor.execute(() -> {
+            try {
+                Path directory = Files.createDirectories(Path.of(dumpDirectory));
+                Path file = directory.resolve(String.format("slow-push-%d-%s.jfr", pushId,
+                        LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"))));
+                recording.dump(file);
+                log.warn("Push {} of repository: {} took {} ms, flight recording dumped to: {}",
+                        pushId, repositoryId, elapsedNanos / 1_000_000, file);
+            } catch (Exception e) {
+                log.error("Failed to dump flight recording for slow push {}", pushId, e);
+            }
+        });
+    }
+}
@@ -0,0 +1,48 @@
+package com.vega.pushservice.infrastructure.jfr;
+
+/**
+ * Identifies the push the current thread is working on, so events emitted deep in the storage
+ * layer can be attributed to it without threading the push ID through every call.
+ */
+public final class PushTrace {
+    
+    private static final ThreadLocal<PushTrace> CURRENT = new ThreadLocal<>();
+    
+    private long pushId;
+    private final String repositoryId;
+    private final long startNanos = System.nanoTime();
+    
+    private PushTrace(String repositoryId) {
+        this.repositoryId = repositoryId;
+    }
+    
+    static void begin(String repositoryId) {
+        CURRENT.set(new PushTrace(repositoryId));
+    }
+    
+    static void end() {
+        CURRENT.remove();
+    }
+    
+    public static void setPushId(long pushId) {
+        PushTrace trace = CURRENT.get();
+        if (trace != null) {
+            trace.pushId = pushId;
+        }
+    }
+    
+    public static long currentPushId() {
+        PushTrace trace = CURRENT.get();
+        return trace != null ? trace.pushId : 0;
+    }
+    
+    public static String currentRepositoryId() {
+        PushTrace trace = CURRENT.get();
+        return trace != null ? trace.repositoryId : null;
+    }
+    
+    static long elapsedNanos() {
+        PushTrace trace = CURRENT.get();
+        return trace != null ? System.nanoTime() - trace.startNanos : 0;
+    }
+}
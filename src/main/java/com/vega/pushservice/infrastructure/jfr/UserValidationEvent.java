@@ -0,0 +1,28 @@
+package com.vega.pushservice.infrastructure.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import lombok.Setter;
+
+@Name("com.vega.push.UserValidation")
+@Label("User Validation")
+@Category({"Vega", "Push"})
+@StackTrace(false)
+@Setter
+public class UserValidationEvent extends Event {
+    
+    @Label("Push ID")
+    private long pushId;
+    
+    @Label("Repository ID")
+    private String repositoryId;
+    
+    @Label("Operation")
+    private String operation;
+    
+    @Label("Succeeded")
+    private boolean succeeded;
+}
@@ -0,0 +1,91 @@
+package com.vega.pushservice.domain.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BlobCacheServiceTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private BlobCacheService cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new BlobCacheService(meterRegistry);
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "maxBytes", 100L);
+        ReflectionTestUtils.setField(cache, "maxEntryBytes", 60L);
+        ReflectionTestUtils.setField(cache, "maxIndexEntries", 1000);
+        cache.init();
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedBlobsOnceOverByteBudget() {
+        cache.put("a", bytes(40, 'a'));
+        cache.put("b", bytes(40, 'b'));
+        // Touch "a" so "b" becomes the eldest
+        assertThat(cache.get("a")).isEqualTo(bytes(40, 'a'));
+
+        cache.put("c", bytes(40, 'c'));
+
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.get("a")).isEqualTo(bytes(40, 'a'));
+        assertThat(cache.get("c")).isEqualTo(bytes(40, 'c'));
+        assertThat(cache.getCurrentBytes()).isEqualTo(80);
+        assertThat(meterRegistry.get("vega.blob.cache.evictions").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void skipsEntriesLargerThanEntryLimit() {
+        cache.put("big", bytes(61, 'x'));
+
+        assertThat(cache.get("big")).isNull();
+        assertThat(cache.getCurrentBytes()).isZero();
+    }
+
+    @Test
+    void newMetadataVersionMissesInsteadOfServingEarlierPush() {
+        cache.put(BlobCacheService.pathKey(1L, "repo", 1, "file"), text("old"));
+
+        // Another instance committed a push, so readers now hold version 2
+        assertThat(cache.get(BlobCacheService.pathKey(1L, "repo", 2, "file"))).isNull();
+        cache.put(BlobCacheService.pathKey(1L, "repo", 2, "file"), text("new"));
+        assertThat(cache.get(BlobCacheService.pathKey(1L, "repo", 2, "file"))).isEqualTo(text("new"));
+    }
+
+    @Test
+    void sharesBlobsBetweenPathsWithIdenticalContent() {
+        cache.put(BlobCacheService.pathKey(1L, "repo-a", 1, "file"), text("same"));
+        cache.put(BlobCacheService.pathKey(1L, "repo-b", 1, "file"), text("same"));
+
+        assertThat(cache.getEntryCount()).isEqualTo(1);
+        assertThat(cache.get(BlobCacheService.pathKey(1L, "repo-b", 1, "file"))).isEqualTo(text("same"));
+    }
+
+    @Test
+    void invalidateRepositoryDropsEveryVersionOfOnlyItsPaths() {
+        cache.put(BlobCacheService.pathKey(1L, "repo", 1, "a.txt"), text("a"));
+        cache.put(BlobCacheService.pathKey(1L, "repo", 2, "gone.txt"), text("c"));
+        cache.put(BlobCacheService.pathKey(1L, "repository", 1, "a.txt"), text("b"));
+
+        cache.invalidateRepository(1L, "repo");
+
+        assertThat(cache.get(BlobCacheService.pathKey(1L, "repo", 1, "a.txt"))).isNull();
+        assertThat(cache.get(BlobCacheService.pathKey(1L, "repo", 2, "gone.txt"))).isNull();
+        assertThat(cache.get(BlobCacheService.pathKey(1L, "repository", 1, "a.txt"))).isEqualTo(text("b"));
+    }
+
+    private static byte[] bytes(int length, char fill) {
+        return String.valueOf(fill).repeat(length).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] text(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
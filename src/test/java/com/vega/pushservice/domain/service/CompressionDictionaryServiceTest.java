@@ -0,0 +1,122 @@
+package com.vega.pushservice.domain.service;
+
+import com.vega.pushservice.domain.dto.PushRequest;
+import com.vega.pushservice.domain.model.CompressionDictionary;
+import com.vega.pushservice.domain.repository.CompressionDictionaryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CompressionDictionaryServiceTest {
+
+    private static final String SHARED = "import java.util.List;\nimport java.util.Map;\n\npublic final class ";
+
+    private CompressionDictionaryRepository dictionaryRepository;
+    private CompressionDictionaryService dictionaryService;
+
+    @BeforeEach
+    void setUp() {
+        dictionaryRepository = mock(CompressionDictionaryRepository.class);
+        dictionaryService = new CompressionDictionaryService(dictionaryRepository,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        ReflectionTestUtils.setField(dictionaryService, "enabled", true);
+        ReflectionTestUtils.setField(dictionaryService, "smallObjectBytes", 8192);
+        ReflectionTestUtils.setField(dictionaryService, "minSamples", 8);
+        ReflectionTestUtils.setField(dictionaryService, "maxSizeBytes", 1024);
+        ReflectionTestUtils.setField(dictionaryService, "sampleBudgetBytes", 1048576);
+        ReflectionTestUtils.setField(dictionaryService, "retrainAfterMillis", 604800000L);
+
+        when(dictionaryRepository.findFirstByRepositoryIdAndUserIdOrderByVersionDesc("repo", 1L))
+                .thenReturn(Optional.empty());
+    }
+
+    @Test
+    void trainsBoundedDictionaryFromSharedContent() {
+        List<byte[]> samples = new ArrayList<>();
+        Random random = new Random(1);
+        for (int i = 0; i < 50; i++) {
+            samples.add((SHARED + "Type" + i + " {\n" + randomText(random, 400) + "}\n").getBytes(StandardCharsets.UTF_8));
+        }
+
+        byte[] dictionary = dictionaryService.train(samples);
+
+        assertThat(dictionary.length).isPositive().isLessThanOrEqualTo(1024);
+        assertThat(new String(dictionary, StandardCharsets.UTF_8)).contains("import java.util");
+    }
+
+    @Test
+    void trainingOnUnrelatedSamplesYieldsNoDictionary() {
+        List<byte[]> samples = new ArrayList<>();
+        Random random = new Random(2);
+        for (int i = 0; i < 20; i++) {
+            samples.add(randomText(random, 2000).getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertThat(dictionaryService.train(samples)).isEmpty();
+    }
+
+    @Test
+    void savesNewVersionForPushWithEnoughSamples() {
+        when(dictionaryRepository.save(any(CompressionDictionary.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        CompressionDictionary dictionary = dictionaryService.dictionaryForPush(1L, push(10));
+
+        assertThat(dictionary).isNotNull();
+        assertThat(dictionary.getVersion()).isEqualTo(1);
+        assertThat(dictionary.getSampleCount()).isEqualTo(10);
+    }
+
+    @Test
+    void usesConcurrentlyTrainedVersionWhenSaveConflicts() {
+        CompressionDictionary concurrent = CompressionDictionary.builder().id(5L).version(1).build();
+        when(dictionaryRepository.save(any(CompressionDictionary.class)))
+                .thenThrow(new DataIntegrityViolationException("duplicate version"));
+        when(dictionaryRepository.findFirstByRepositoryIdAndUserIdOrderByVersionDesc("repo", 1L))
+                .thenReturn(Optional.empty(), Optional.of(concurrent));
+
+        assertThat(dictionaryService.dictionaryForPush(1L, push(10))).isSameAs(concurrent);
+    }
+
+    @Test
+    void skipsTrainingWithTooFewSamples() {
+        assertThat(dictionaryService.dictionaryForPush(1L, push(3))).isNull();
+    }
+
+    private static PushRequest push(int files) {
+        PushRequest request = new PushRequest();
+        request.setRepositoryId("repo");
+        List<PushRequest.FileInfo> fileInfos = new ArrayList<>();
+        Random random = new Random(3);
+        for (int i = 0; i < files; i++) {
+            PushRequest.FileInfo file = new PushRequest.FileInfo();
+            file.setPath("src/Type" + i + ".java");
+            file.setContent(SHARED + "Type" + i + " {\n" + randomText(random, 200) + "}\n");
+            fileInfos.add(file);
+        }
+        request.setFiles(fileInfos);
+        return request;
+    }
+
+    private static String randomText(Random random, int length) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append((char) ('a' + random.nextInt(26)));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,159 @@
+package com.vega.pushservice.domain.service;
+
+import com.vega.pushservice.domain.model.CompressionDictionary;
+import com.vega.pushservice.domain.repository.CompressionDictionaryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CompressionServiceTest {
+
+    private static final byte[] SOURCE = ("package com.example;\n\n"
+            + "public class Example {\n"
+            + "    private final String name;\n\n"
+            + "    public Example(String name) {\n"
+            + "        this.name = name;\n"
+            + "    }\n"
+            + "}\n").getBytes(StandardCharsets.UTF_8);
+
+    private CompressionDictionaryRepository dictionaryRepository;
+    private CompressionService compressionService;
+    private CompressionDictionary dictionary;
+
+    @BeforeEach
+    void setUp() {
+        dictionaryRepository = mock(CompressionDictionaryRepository.class);
+        compressionService = new CompressionService(dictionaryRepository);
+        ReflectionTestUtils.setField(compressionService, "smallObjectBytes", 8192);
+        ReflectionTestUtils.setField(compressionService, "dictionaryCacheEntries", 16);
+
+        dictionary = CompressionDictionary.builder()
+                .id(42L)
+                .content("public class Example {\n    private final String name;\n"
+                        .getBytes(StandardCharsets.UTF_8))
+                .build();
+        when(dictionaryRepository.findById(42L)).thenReturn(Optional.of(dictionary));
+    }
+
+    @Test
+    void dictionaryRoundTrip() throws IOException {
+        byte[] compressed = compressionService.compressData(SOURCE, dictionary);
+
+        assertThat(Arrays.copyOf(compressed, 3)).containsExactly('V', 'D', 1);
+        assertThat(compressed.length).isLessThan(compressionService.compressData(SOURCE).length);
+        assertThat(compressionService.decompressData(compressed)).isEqualTo(SOURCE);
+    }
+
+    @Test
+    void dictionaryIsLoadedOnceAndThenServedFromCache() throws IOException {
+        byte[] compressed = compressionService.compressData(SOURCE, dictionary);
+
+        compressionService.decompressData(compressed);
+        compressionService.decompressData(compressed);
+
+        verify(dictionaryRepository, times(1)).findById(42L);
+    }
+
+    @Test
+    void fallsBackToGzipWithoutDictionary() throws IOException {
+        byte[] compressed = compressionService.compressData(SOURCE, null);
+
+        assertGzip(compressed);
+        assertThat(compressionService.decompressData(compressed)).isEqualTo(SOURCE);
+    }
+
+    @Test
+    void fallsBackToGzipForObjectsAboveSmallObjectLimit() throws IOException {
+        ReflectionTestUtils.setField(compressionService, "smallObjectBytes", SOURCE.length - 1);
+
+        byte[] compressed = compressionService.compressData(SOURCE, dictionary);
+
+        assertGzip(compressed);
+        assertThat(compressionService.decompressData(compressed)).isEqualTo(SOURCE);
+    }
+
+    @Test
+    void decodesLegacyGzipObjects() throws IOException {
+        ByteArrayOutputStream legacy = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzipOut = new GZIPOutputStream(legacy)) {
+            gzipOut.write(SOURCE);
+        }
+
+        assertThat(compressionService.decompressData(legacy.toByteArray())).isEqualTo(SOURCE);
+    }
+
+    @Test
+    void decodesEmptyObjects() throws IOException {
+        assertThat(compressionService.decompressData(compressionService.compressData(new byte[0], dictionary)))
+                .isEmpty();
+    }
+
+    @Test
+    void rejectsTruncatedDictionaryObject() throws IOException {
+        byte[] compressed = compressionService.compressData(SOURCE, dictionary);
+        byte[] truncated = Arrays.copyOf(compressed, compressed.length - 5);
+
+        assertThatThrownBy(() -> compressionService.decompressData(truncated))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Truncated");
+    }
+
+    @Test
+    void rejectsHeaderWithoutBody() throws IOException {
+        byte[] compressed = compressionService.compressData(SOURCE, dictionary);
+        byte[] headerOnly = Arrays.copyOf(compressed, 11);
+
+        assertThatThrownBy(() -> compressionService.decompressData(headerOnly)).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void rejectsCorruptDictionaryObject() throws IOException {
+        byte[] corrupt = compressionService.compressData(SOURCE, dictionary);
+        // Clobber the zlib header right after the dictionary ID
+        corrupt[11] = (byte) 0xff;
+        corrupt[12] = (byte) 0xff;
+
+        assertThatThrownBy(() -> compressionService.decompressData(corrupt))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Corrupt");
+    }
+
+    @Test
+    void rejectsObjectWhoseDictionaryIsMissing() throws IOException {
+        CompressionDictionary unknown = CompressionDictionary.builder().id(7L).content(dictionary.getContent()).build();
+        when(dictionaryRepository.findById(7L)).thenReturn(Optional.empty());
+
+        byte[] compressed = compressionService.compressData(SOURCE, unknown);
+
+        assertThatThrownBy(() -> compressionService.decompressData(compressed))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("dictionary not found");
+    }
+
+    @Test
+    void rejectsTruncatedGzipObject() throws IOException {
+        byte[] compressed = compressionService.compressData(SOURCE);
+        byte[] truncated = Arrays.copyOf(compressed, compressed.length / 2);
+
+        assertThatThrownBy(() -> compressionService.decompressData(truncated)).isInstanceOf(IOException.class);
+    }
+
+    private static void assertGzip(byte[] compressed) {
+        assertThat(compressed[0]).isEqualTo((byte) 0x1f);
+        assertThat(compressed[1]).isEqualTo((byte) 0x8b);
+    }
+}
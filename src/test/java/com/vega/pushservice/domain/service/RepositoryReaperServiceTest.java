@@ -0,0 +1,113 @@
+package com.vega.pushservice.domain.service;
+
+import com.vega.pushservice.domain.model.RepositoryMetadata;
+import com.vega.pushservice.domain.model.StorageTier;
+import com.vega.pushservice.domain.repository.RepositoryMetadataRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RepositoryReaperServiceTest {
+
+    private RepositoryMetadataRepository repositoryMetadataRepository;
+    private RepositoryStorageService repositoryStorageService;
+    private RepositoryReaperService reaper;
+
+    @BeforeEach
+    void setUp() {
+        repositoryMetadataRepository = mock(RepositoryMetadataRepository.class);
+        repositoryStorageService = mock(RepositoryStorageService.class);
+        reaper = new RepositoryReaperService(repositoryMetadataRepository, repositoryStorageService);
+        ReflectionTestUtils.setField(reaper, "gracePeriodMillis", 86400000L);
+        ReflectionTestUtils.setField(reaper, "repositoriesPerRun", 20);
+        ReflectionTestUtils.setField(reaper, "maxAttempts", 5);
+    }
+
+    @Test
+    void claimsRowBeforeDeletingStaleTier() throws Exception {
+        RepositoryMetadata metadata = movedToInline(7);
+        staleRows(metadata);
+        when(repositoryMetadataRepository.claimVersion(1L, 7)).thenReturn(1);
+
+        reaper.reap();
+
+        InOrder order = inOrder(repositoryMetadataRepository, repositoryStorageService);
+        order.verify(repositoryMetadataRepository).claimVersion(1L, 7);
+        order.verify(repositoryStorageService).deleteTier(2L, "repo", StorageTier.HDFS, "a");
+        ArgumentCaptor<RepositoryMetadata> saved = ArgumentCaptor.forClass(RepositoryMetadata.class);
+        order.verify(repositoryMetadataRepository).save(saved.capture());
+        assertThat(saved.getValue().getStaleStorageTier()).isNull();
+        assertThat(saved.getValue().getVersion()).isEqualTo(8);
+    }
+
+    @Test
+    void leavesDataAloneWhenPushChangedRowSinceItWasRead() throws Exception {
+        // Read as INLINE with a stale HDFS copy; a push has committed since
+        staleRows(movedToInline(7));
+        when(repositoryMetadataRepository.claimVersion(1L, 7)).thenReturn(0);
+
+        reaper.reap();
+
+        verify(repositoryStorageService, never()).deleteTier(any(), any(), any(), any());
+        verify(repositoryMetadataRepository, never()).save(any());
+    }
+
+    @Test
+    void keepsMarkerWhenPushLandsDuringDelete() throws Exception {
+        staleRows(movedToInline(7));
+        when(repositoryMetadataRepository.claimVersion(1L, 7)).thenReturn(1);
+        when(repositoryMetadataRepository.save(any()))
+                .thenThrow(new ObjectOptimisticLockingFailureException(RepositoryMetadata.class, 1L));
+
+        reaper.reap();
+
+        verify(repositoryStorageService).deleteTier(2L, "repo", StorageTier.HDFS, "a");
+        verify(repositoryMetadataRepository, never()).claimVersion(1L, 8);
+    }
+
+    @Test
+    void neverDeletesTierTheRepositoryIsLiveIn() throws Exception {
+        RepositoryMetadata metadata = movedToInline(7);
+        metadata.setStaleStorageTier(StorageTier.INLINE);
+        staleRows(metadata);
+        when(repositoryMetadataRepository.claimVersion(anyLong(), anyLong())).thenReturn(1);
+
+        reaper.reap();
+
+        verify(repositoryStorageService, never()).deleteTier(any(), any(), any(), any());
+        verify(repositoryMetadataRepository).save(metadata);
+    }
+
+    private void staleRows(RepositoryMetadata... rows) {
+        when(repositoryMetadataRepository.findByStaleStorageTierIsNotNullAndDeletedAtIsNullOrderByIdAsc(
+                any(Pageable.class))).thenReturn(List.of(rows));
+    }
+
+    private static RepositoryMetadata movedToInline(long version) {
+        return RepositoryMetadata.builder()
+                .id(1L)
+                .userId(2L)
+                .repositoryId("repo")
+                .storageTier(StorageTier.INLINE)
+                .shard("a")
+                .staleStorageTier(StorageTier.HDFS)
+                .staleShard("a")
+                .version(version)
+                .build();
+    }
+}
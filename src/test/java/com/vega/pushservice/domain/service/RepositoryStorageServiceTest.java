@@ -0,0 +1,106 @@
+package com.vega.pushservice.domain.service;
+
+import com.vega.pushservice.domain.dto.PushRequest;
+import com.vega.pushservice.domain.model.InlineObject;
+import com.vega.pushservice.domain.model.RepositoryMetadata;
+import com.vega.pushservice.domain.model.StorageTier;
+import com.vega.pushservice.domain.repository.CompressionDictionaryRepository;
+import com.vega.pushservice.domain.repository.InlineObjectRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RepositoryStorageServiceTest {
+
+    private InlineObjectRepository inlineObjectRepository;
+    private CompressionService compressionService;
+    private RepositoryStorageService storageService;
+
+    @BeforeEach
+    void setUp() {
+        inlineObjectRepository = mock(InlineObjectRepository.class);
+        CompressionDictionaryRepository dictionaryRepository = mock(CompressionDictionaryRepository.class);
+        compressionService = new CompressionService(dictionaryRepository);
+
+        BlobCacheService blobCache = new BlobCacheService(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(blobCache, "enabled", true);
+        ReflectionTestUtils.setField(blobCache, "maxBytes", 1024L);
+        ReflectionTestUtils.setField(blobCache, "maxEntryBytes", 1024L);
+        ReflectionTestUtils.setField(blobCache, "maxIndexEntries", 100);
+        blobCache.init();
+
+        storageService = new RepositoryStorageService(mock(HdfsService.class), mock(ShardRoutingService.class),
+                compressionService, blobCache, inlineObjectRepository, dictionaryRepository);
+        ReflectionTestUtils.setField(storageService, "inlineEnabled", true);
+        ReflectionTestUtils.setField(storageService, "inlineThresholdBytes", 16L);
+    }
+
+    @Test
+    void pushReturningToStaleTierStaysPutUntilTheCopyIsRemoved() {
+        RepositoryMetadata movedToInline = inline(3);
+        movedToInline.setStaleStorageTier(StorageTier.HDFS);
+        PushRequest large = push("more than sixteen bytes of content");
+
+        // The reaper may be emptying the HDFS location right now
+        assertThat(storageService.selectTier(large, movedToInline)).isEqualTo(StorageTier.INLINE);
+
+        movedToInline.setStaleStorageTier(null);
+        assertThat(storageService.selectTier(large, movedToInline)).isEqualTo(StorageTier.HDFS);
+        assertThat(storageService.selectTier(push("small"), movedToInline)).isEqualTo(StorageTier.INLINE);
+    }
+
+    @Test
+    void readAfterPushCommittedElsewhereServesNewContent() throws IOException {
+        when(inlineObjectRepository.findByRepositoryIdAndUserIdAndPath("repo", 1L, "a.txt"))
+                .thenReturn(Optional.of(object("old")), Optional.of(object("new")));
+
+        assertThat(storageService.readFile(inline(1), "a.txt")).isEqualTo(text("old"));
+        assertThat(storageService.readFile(inline(1), "a.txt")).isEqualTo(text("old"));
+
+        // The push ran on another instance, so only the committed metadata version tells this one
+        assertThat(storageService.readFile(inline(2), "a.txt")).isEqualTo(text("new"));
+        verify(inlineObjectRepository, times(2)).findByRepositoryIdAndUserIdAndPath("repo", 1L, "a.txt");
+    }
+
+    private RepositoryMetadata inline(long version) {
+        return RepositoryMetadata.builder()
+                .userId(1L)
+                .repositoryId("repo")
+                .storageTier(StorageTier.INLINE)
+                .version(version)
+                .build();
+    }
+
+    private static PushRequest push(String content) {
+        PushRequest.FileInfo file = new PushRequest.FileInfo();
+        file.setPath("a.txt");
+        file.setContent(content);
+        PushRequest request = new PushRequest();
+        request.setRepositoryId("repo");
+        request.setFiles(List.of(file));
+        return request;
+    }
+
+    private InlineObject object(String content) throws IOException {
+        return InlineObject.builder()
+                .path("a.txt")
+                .compressedContent(compressionService.compressData(text(content)))
+                .build();
+    }
+
+    private static byte[] text(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
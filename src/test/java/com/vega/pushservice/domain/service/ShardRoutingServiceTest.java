@@ -0,0 +1,97 @@
+package com.vega.pushservice.domain.service;
+
+import com.vega.pushservice.infrastructure.config.HdfsShardProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ShardRoutingServiceTest {
+
+    private static final int KEYS = 20_000;
+
+    @Test
+    void addingShardMovesAboutOneNthOfRepositoriesAndOnlyToTheNewShard() {
+        ShardRoutingService before = routing(shard("a"), shard("b"), shard("c"), shard("d"));
+        ShardRoutingService after = routing(shard("a"), shard("b"), shard("c"), shard("d"), shard("e"));
+
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            String repositoryId = "repo-" + i;
+            String from = before.shardFor((long) i % 97, repositoryId);
+            String to = after.shardFor((long) i % 97, repositoryId);
+            if (!from.equals(to)) {
+                assertThat(to).isEqualTo("e");
+                moved++;
+            }
+        }
+
+        // Ideal share is 1/5; virtual nodes keep it within a few percent
+        assertThat(moved / (double) KEYS).isBetween(0.15, 0.25);
+    }
+
+    @Test
+    void spreadsRepositoriesEvenlyAcrossShards() {
+        ShardRoutingService routing = routing(shard("a"), shard("b"), shard("c"), shard("d"));
+
+        int onA = 0;
+        for (int i = 0; i < KEYS; i++) {
+            if (routing.shardFor(1L, "repo-" + i).equals("a")) {
+                onA++;
+            }
+        }
+
+        assertThat(onA / (double) KEYS).isBetween(0.20, 0.30);
+    }
+
+    @Test
+    void drainingShardStaysAddressableButGetsNoPlacements() {
+        HdfsShardProperties.Shard draining = shard("b");
+        draining.setDraining(true);
+        ShardRoutingService routing = routing(shard("a"), draining);
+
+        for (int i = 0; i < 1000; i++) {
+            assertThat(routing.shardFor(1L, "repo-" + i)).isEqualTo("a");
+        }
+        assertThat(routing.getShard("b").getUri()).isEqualTo("hdfs://b:9000");
+    }
+
+    @Test
+    void legacyRowsResolveToDefaultShard() {
+        ShardRoutingService routing = routing(shard("a"));
+
+        assertThat(routing.getShard(null).getName()).isEqualTo(ShardRoutingService.DEFAULT_SHARD);
+        assertThat(routing.getShard(null).getUri()).isEqualTo("hdfs://default:9000");
+        assertThatThrownBy(() -> routing.getShard("missing")).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void refusesToStartWhenEveryShardIsDraining() {
+        HdfsShardProperties.Shard draining = shard("a");
+        draining.setDraining(true);
+
+        assertThatThrownBy(() -> routing(draining)).isInstanceOf(IllegalStateException.class);
+    }
+
+    private static ShardRoutingService routing(HdfsShardProperties.Shard... shards) {
+        HdfsShardProperties properties = new HdfsShardProperties();
+        properties.setUri("hdfs://default:9000");
+        properties.setBasePath("/vega/repositories");
+        properties.setShards(new ArrayList<>(List.of(shards)));
+
+        ShardRoutingService routing = new ShardRoutingService(properties);
+        routing.init();
+        return routing;
+    }
+
+    private static HdfsShardProperties.Shard shard(String name) {
+        HdfsShardProperties.Shard shard = new HdfsShardProperties.Shard();
+        shard.setName(name);
+        shard.setUri("hdfs://" + name + ":9000");
+        shard.setBasePath("/vega/repositories");
+        return shard;
+    }
+}
@@ -0,0 +1,37 @@
+package com.vega.pushservice.infrastructure.loadtest;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "loadtest")
+public class LoadTestProperties {
+    
+    private long seed = 42L;
+    private boolean exitOnCompletion = true;
+    private List<Scenario> scenarios = new ArrayList<>();
+    
+    @Data
+    public static class Scenario {
+        private String name;
+        private int pushes = 100;
+        private int warmupPushes = 10;
+        private int concurrency = 4;
+        private int users = 10;
+        private int repositoriesPerUser = 5;
+        private int filesPerPush = 10;
+        private int minFileSize = 256;
+        private int maxFileSize = 4096;
+        private SizeDistribution sizeDistribution = SizeDistribution.UNIFORM;
+    }
+    
+    public enum SizeDistribution {
+        /** Every size between min and max is equally likely. */
+        UNIFORM,
+        /** Most files close to the minimum with a long tail of large ones, like typical source trees. */
+        SKEWED
+    }
+}
@@ -0,0 +1,238 @@
+package com.vega.pushservice.infrastructure.loadtest;
+
+import com.vega.pushservice.domain.dto.PushRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives the configured push scenarios against the running application over HTTP and logs
+ * throughput, latency percentiles and heap use per scenario. Lives in the test sources and is only
+ * active with the {@code loadtest} profile, which also swaps in local stand-ins for HDFS, Postgres
+ * and the user service.
+ */
+@Component
+@Profile("loadtest")
+@EnableConfigurationProperties(LoadTestProperties.class)
+@RequiredArgsConstructor
+@Slf4j
+class LoadTestRunner implements ApplicationRunner {
+
+    private static final char[] CONTENT_ALPHABET =
+            "abcdefghijklmnopqrstuvwxyz ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789(){};=.\n".toCharArray();
+
+    private final LoadTestProperties properties;
+    private final RestTemplate restTemplate;
+    private final ApplicationContext applicationContext;
+
+    @Value("${server.port}")
+    private int serverPort;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        for (LoadTestProperties.Scenario scenario : properties.getScenarios()) {
+            int repositories = scenario.getUsers() * scenario.getRepositoriesPerUser();
+            if (scenario.getConcurrency() > repositories) {
+                throw new IllegalArgumentException(String.format(
+                        "Scenario %s: concurrency %d exceeds its %d repositories (users * repositories-per-user)",
+                        scenario.getName(), scenario.getConcurrency(), repositories));
+            }
+        }
+        
+        List<ScenarioResult> results = new ArrayList<>();
+        for (LoadTestProperties.Scenario scenario : properties.getScenarios()) {
+            results.add(runScenario(scenario));
+        }
+
+        log.info("Load test results:\n{}", formatReport(results));
+
+        if (properties.isExitOnCompletion()) {
+            System.exit(SpringApplication.exit(applicationContext, () -> 0));
+        }
+    }
+
+    private ScenarioResult runScenario(LoadTestProperties.Scenario scenario) throws Exception {
+        Random random = new Random(properties.getSeed());
+        String url = String.format("http://localhost:%d/api/push/repository", serverPort);
+
+        log.info("Running scenario: {} ({} pushes, concurrency {}, {} files per push)",
+                scenario.getName(), scenario.getPushes(), scenario.getConcurrency(), scenario.getFilesPerPush());
+
+        // Build payloads up front so generation cost stays out of the measurements
+        List<Push> warmup = buildPushes(scenario, scenario.getWarmupPushes(), random);
+        List<Push> pushes = buildPushes(scenario, scenario.getPushes(), random);
+        long payloadBytes = pushes.stream().mapToLong(Push::bytes).sum();
+
+        ExecutorService executor = Executors.newFixedThreadPool(scenario.getConcurrency());
+        try {
+            execute(executor, url, warmup);
+
+            System.gc();
+            List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                    .filter(pool -> pool.getType() == MemoryType.HEAP)
+                    .toList();
+            heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+
+            long start = System.nanoTime();
+            long[] latencies = execute(executor, url, pushes);
+            long elapsedNanos = System.nanoTime() - start;
+
+            long peakHeap = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+            long usedHeap = heapPools.stream().mapToLong(pool -> pool.getUsage().getUsed()).sum();
+
+            return new ScenarioResult(scenario.getName(), latencies, elapsedNanos, payloadBytes, usedHeap, peakHeap);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Executes the pushes and returns their latencies in nanoseconds, with -1 for failed pushes.
+     */
+    private long[] execute(ExecutorService executor, String url, List<Push> pushes) throws Exception {
+        // One lock per repository: a fast worker can lap a slow one, so round-robin alone does not keep
+        // two in-flight pushes off the same repository
+        Map<String, Object> repositoryLocks = new ConcurrentHashMap<>();
+        List<Future<Long>> futures = new ArrayList<>(pushes.size());
+        for (Push push : pushes) {
+            Object lock = repositoryLocks.computeIfAbsent(push.request().getRepositoryId(), id -> new Object());
+            futures.add(executor.submit(() -> {
+                synchronized (lock) {
+                    return send(url, push);
+                }
+            }));
+        }
+
+        long[] latencies = new long[pushes.size()];
+        for (int i = 0; i < futures.size(); i++) {
+            latencies[i] = futures.get(i).get(10, TimeUnit.MINUTES);
+        }
+        return latencies;
+    }
+
+    private long send(String url, Push push) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", StubUserServiceController.TOKEN_PREFIX + push.userId());
+        headers.setContentType(MediaType.APPLICATION_JSON);
+
+        long start = System.nanoTime();
+        try {
+            restTemplate.exchange(url, HttpMethod.POST, new HttpEntity<>(push.request(), headers), String.class);
+            return System.nanoTime() - start;
+        } catch (Exception e) {
+            log.warn("Push of repository: {} failed: {}", push.request().getRepositoryId(), e.getMessage());
+            return -1;
+        }
+    }
+
+    private List<Push> buildPushes(LoadTestProperties.Scenario scenario, int count, Random random) {
+        List<Push> pushes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            // Round-robin over repositories to spread concurrent pushes evenly
+            int slot = i % (scenario.getUsers() * scenario.getRepositoriesPerUser());
+            long userId = 1 + slot / scenario.getRepositoriesPerUser();
+            int repository = slot % scenario.getRepositoriesPerUser();
+
+            PushRequest request = new PushRequest();
+            request.setRepositoryId(String.format("%s-%d-%d", scenario.getName(), userId, repository));
+            request.setRepositoryName(String.format("%s repository %d", scenario.getName(), repository));
+            request.setCommitHash(String.format("%040x", random.nextLong() & Long.MAX_VALUE));
+
+            List<PushRequest.FileInfo> files = new ArrayList<>(scenario.getFilesPerPush());
+            long bytes = 0;
+            for (int f = 0; f < scenario.getFilesPerPush(); f++) {
+                int size = nextFileSize(scenario, random);
+                PushRequest.FileInfo file = new PushRequest.FileInfo();
+                file.setPath(String.format("src/dir%d/file%d.txt", f % 8, f));
+                file.setContent(randomContent(size, random));
+                file.setSize((long) size);
+                file.setType("BLOB");
+                files.add(file);
+                bytes += size;
+            }
+            request.setFiles(files);
+
+            pushes.add(new Push(userId, request, bytes));
+        }
+        return pushes;
+    }
+
+    private int nextFileSize(LoadTestProperties.Scenario scenario, Random random) {
+        int range = scenario.getMaxFileSize() - scenario.getMinFileSize();
+        double r = random.nextDouble();
+        if (scenario.getSizeDistribution() == LoadTestProperties.SizeDistribution.SKEWED) {
+            r = r * r * r;
+        }
+        return scenario.getMinFileSize() + (int) (range * r);
+    }
+
+    private String randomContent(int size, Random random) {
+        char[] content = new char[size];
+        for (int i = 0; i < size; i++) {
+            content[i] = CONTENT_ALPHABET[random.nextInt(CONTENT_ALPHABET.length)];
+        }
+        return new String(content);
+    }
+
+    private String formatReport(List<ScenarioResult> results) {
+        StringBuilder report = new StringBuilder(String.format("%-20s %8s %8s %10s %10s %10s %10s %10s %10s%n",
+                "scenario", "pushes", "failed", "push/s", "MB/s", "p50 ms", "p99 ms", "heap MB", "peak MB"));
+
+        for (ScenarioResult result : results) {
+            long[] succeeded = Arrays.stream(result.latencies()).filter(latency -> latency >= 0).sorted().toArray();
+            double seconds = result.elapsedNanos() / 1e9;
+            report.append(String.format("%-20s %8d %8d %10.1f %10.2f %10.1f %10.1f %10.1f %10.1f%n",
+                    result.name(),
+                    result.latencies().length,
+                    result.latencies().length - succeeded.length,
+                    succeeded.length / seconds,
+                    result.payloadBytes() / seconds / (1024 * 1024),
+                    percentile(succeeded, 0.50) / 1e6,
+                    percentile(succeeded, 0.99) / 1e6,
+                    result.usedHeap() / (1024.0 * 1024),
+                    result.peakHeap() / (1024.0 * 1024)));
+        }
+        return report.toString();
+    }
+
+    private long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private record Push(long userId, PushRequest request, long bytes) {
+    }
+
+    private record ScenarioResult(String name, long[] latencies, long elapsedNanos, long payloadBytes,
+                                  long usedHeap, long peakHeap) {
+    }
+}
@@ -0,0 +1,44 @@
+package com.vega.pushservice.infrastructure.loadtest;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * Stands in for the user service during load tests. Tokens of the form {@code loadtest-<userId>}
+ * are accepted and resolve to that user ID.
+ */
+@RestController
+@Profile("loadtest")
+class StubUserServiceController {
+    
+    static final String TOKEN_PREFIX = "loadtest-";
+    
+    @PostMapping("/api/auth/validate")
+    public ResponseEntity<Boolean> validate(@RequestHeader("Authorization") String authorization) {
+        return ResponseEntity.ok(parseUserId(authorization) != null);
+    }
+    
+    @GetMapping("/api/users/profile")
+    public ResponseEntity<Map<String, Object>> profile(@RequestHeader("Authorization") String authorization) {
+        Long userId = parseUserId(authorization);
+        if (userId == null) {
+            return ResponseEntity.status(401).build();
+        }
+        return ResponseEntity.ok(Map.of("id", userId));
+    }
+    
+    private Long parseUserId(String authorization) {
+        String token = authorization.startsWith("Bearer ") ? authorization.substring(7) : authorization;
+        if (!token.startsWith(TOKEN_PREFIX)) {
+            return null;
+        }
+        try {
+            return Long.parseLong(token.substring(TOKEN_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}